@@ -0,0 +1,60 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.Army;
+import com.heroes_task.programs.GeneratePresetImpl;
+import com.heroes_task.programs.battle.ArmyCopier;
+import com.heroes_task.programs.battle.BattleBatchRunner;
+import com.heroes_task.programs.battle.BattleResult;
+import com.heroes_task.programs.battle.TargetSelection;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полная безголовая битва двух пресетов на 1500 очков в одном потоке: копирование армий, назначение программ,
+ * все раунды до победы одной из сторон. Каждый вызов идет со следующим зерном, чтобы не измерять одну и ту же битву.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BattleBenchmark {
+
+    @Param({"RANDOM", "NEAREST"})
+    private TargetSelection playerSelection;
+
+    private BattleBatchRunner runner;
+    private Army player;
+    private Army computer;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        runner = BattleBatchRunner.builder()
+                .parallelism(1)
+                .targetSelection(playerSelection, TargetSelection.RANDOM)
+                .build();
+        player = ArmyCopier.copyMirrored(preset(1));
+        computer = preset(2);
+    }
+
+    private static Army preset(long seed) {
+        return GeneratePresetImpl.builder()
+                .seed(seed)
+                .log(AsyncBattleLog.off())
+                .build()
+                .generate(BenchmarkUnits.unitTypes(), 1500);
+    }
+
+    @Benchmark
+    public BattleResult battle() {
+        return runner.runSingle(player, computer, seed++);
+    }
+}
@@ -0,0 +1,48 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.battle.Battlefield;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Общие данные бенчмарков: шаблоны юнитов и заготовки юнитов на поле.
+ */
+final class BenchmarkUnits {
+    /**
+     * Ширина поля боя.
+     */
+    static final int WIDTH = Battlefield.STANDARD.getWidth();
+    /**
+     * Высота поля боя.
+     */
+    static final int HEIGHT = Battlefield.STANDARD.getHeight();
+
+    private BenchmarkUnits() {
+    }
+
+    /**
+     * @return шаблоны четырех типов юнитов игры, по одному на тип
+     */
+    static List<Unit> unitTypes() {
+        List<Unit> types = new ArrayList<>();
+        types.add(template("Archer", 50, 30, 19, "ranged"));
+        types.add(template("Knight", 30, 60, 26, "melee"));
+        types.add(template("Swordsman", 100, 20, 17, "melee"));
+        types.add(template("Pikeman", 60, 25, 20, "melee"));
+        return types;
+    }
+
+    /**
+     * @return юнит ближнего боя в заданной клетке
+     */
+    static Unit unitAt(String name, int x, int y) {
+        return new Unit(name, "Swordsman", 100, 20, 17, "melee", new HashMap<>(), new HashMap<>(), x, y);
+    }
+
+    private static Unit template(String type, int health, int attack, int cost, String attackType) {
+        return new Unit(type, type, health, attack, cost, attackType, new HashMap<>(), new HashMap<>(), 0, 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.GeneratePresetImpl;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GeneratePresetImpl#generate} для разных бюджетов. Генератор один на итерацию, как в игре,
+ * поэтому таблица подбора состава строится при прогреве и дальше переиспользуется. Журнал выключен.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratePresetBenchmark {
+
+    @Param({"100", "500", "1500", "5000"})
+    private int maxPoints;
+
+    private GeneratePresetImpl generator;
+    private List<Unit> unitTypes;
+
+    @Setup
+    public void setUp() {
+        generator = GeneratePresetImpl.builder()
+                .seed(1)
+                .log(AsyncBattleLog.off())
+                .build();
+        unitTypes = BenchmarkUnits.unitTypes();
+    }
+
+    @Benchmark
+    public Army generate() {
+        return generator.generate(unitTypes, maxPoints);
+    }
+}
@@ -0,0 +1,92 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.programs.Edge;
+import com.heroes_task.programs.path.GridPathEngine;
+import com.heroes_task.programs.path.OccupancyGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск пути на больших квадратных полях: точный поиск в ширину против иерархического.
+ * Около 10% клеток заняты, запросы идут между случайными клетками поля. Каждые 16 запросов
+ * одна клетка освобождается или занимается, чтобы в замер попадало и перестроение кластеров.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LargeFieldPathBenchmark {
+
+    public enum Engine {
+        FLAT,
+        HIERARCHICAL
+    }
+
+    /**
+     * Количество заготовленных запросов; степень двойки, чтобы перебирать их по маске.
+     */
+    private static final int QUERIES = 1024;
+
+    @Param({"100", "250", "500", "1000"})
+    private int size;
+
+    @Param
+    private Engine engine;
+
+    @Param({"16"})
+    private int clusterSize;
+
+    private OccupancyGrid grid;
+    private GridPathEngine flat;
+    private int[] queries;
+    private int next;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        grid = new OccupancyGrid(size, size, engine == Engine.HIERARCHICAL ? clusterSize : 0);
+        flat = new GridPathEngine(size, size);
+        random = new Random(42);
+        for (int i = 0; i < size * size / 10; i++) {
+            grid.add(random.nextInt(size), random.nextInt(size));
+        }
+        queries = new int[QUERIES * 4];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextInt(size);
+        }
+        // Первый запрос строит иерархию целиком; в замер это не входит
+        findPath(0);
+    }
+
+    @Benchmark
+    public List<Edge> findPath() {
+        int query = next++ & (QUERIES - 1);
+        if ((next & 15) == 0) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (grid.isOccupied(x, y)) {
+                grid.remove(x, y);
+            } else {
+                grid.add(x, y);
+            }
+        }
+        return findPath(query);
+    }
+
+    private List<Edge> findPath(int query) {
+        int base = query * 4;
+        if (engine == Engine.HIERARCHICAL) {
+            return grid.getHierarchy().findPath(queries[base], queries[base + 1], queries[base + 2], queries[base + 3]);
+        }
+        return flat.findPath(grid, queries[base], queries[base + 1], queries[base + 2], queries[base + 3]);
+    }
+}
@@ -0,0 +1,109 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.heroes_task.programs.UnitTargetPathFinderImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск пути {@link UnitTargetPathFinderImpl#getTargetPath} через все поле 27x21: от правого края к левому.
+ * <ul>
+ *     <li>EMPTY — на поле только атакующий и цель;</li>
+ *     <li>CROWDED — около 40% клеток заняты юнитами, путь существует;</li>
+ *     <li>MAZE — вертикальные стены через столбец с проходом попеременно сверху и снизу, путь змейкой.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFindingBenchmark {
+
+    public enum Layout {
+        EMPTY,
+        CROWDED,
+        MAZE
+    }
+
+    @Param
+    private Layout layout;
+
+    private UnitTargetPathFinderImpl finder;
+    private Unit attacker;
+    private Unit target;
+    private List<Unit> units;
+
+    @Setup
+    public void setUp() {
+        finder = new UnitTargetPathFinderImpl();
+        attacker = BenchmarkUnits.unitAt("attacker", BenchmarkUnits.WIDTH - 1, BenchmarkUnits.HEIGHT / 2);
+        target = BenchmarkUnits.unitAt("target", 0, BenchmarkUnits.HEIGHT / 2);
+        units = new ArrayList<>();
+        units.add(attacker);
+        units.add(target);
+        switch (layout) {
+            case CROWDED -> fillCrowded();
+            case MAZE -> fillMaze();
+            default -> {
+            }
+        }
+        if (finder.getTargetPath(attacker, target, units).isEmpty()) {
+            throw new IllegalStateException("Benchmark layout " + layout + " has no path");
+        }
+    }
+
+    @Benchmark
+    public List<Edge> getTargetPath() {
+        return finder.getTargetPath(attacker, target, units);
+    }
+
+    /**
+     * Случайно занимает клетки, пока путь от атакующего до цели остается.
+     */
+    private void fillCrowded() {
+        Random random = new Random(42);
+        int wanted = BenchmarkUnits.WIDTH * BenchmarkUnits.HEIGHT * 2 / 5;
+        for (int attempt = 0; attempt < wanted * 4 && units.size() < wanted; attempt++) {
+            int x = random.nextInt(BenchmarkUnits.WIDTH);
+            int y = random.nextInt(BenchmarkUnits.HEIGHT);
+            if (isFree(x, y)) {
+                Unit blocker = BenchmarkUnits.unitAt("blocker " + units.size(), x, y);
+                units.add(blocker);
+                if (finder.getTargetPath(attacker, target, units).isEmpty()) {
+                    units.remove(units.size() - 1);
+                }
+            }
+        }
+    }
+
+    private void fillMaze() {
+        for (int x = 1; x < BenchmarkUnits.WIDTH - 1; x += 2) {
+            int gap = (x / 2) % 2 == 0 ? BenchmarkUnits.HEIGHT - 1 : 0;
+            for (int y = 0; y < BenchmarkUnits.HEIGHT; y++) {
+                if (y != gap) {
+                    units.add(BenchmarkUnits.unitAt("wall " + units.size(), x, y));
+                }
+            }
+        }
+    }
+
+    private boolean isFree(int x, int y) {
+        for (Unit unit : units) {
+            if (unit.getxCoordinate() == x && unit.getyCoordinate() == y) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.Army;
+import com.heroes_task.programs.GeneratePresetImpl;
+import com.heroes_task.programs.battle.ArmyCopier;
+import com.heroes_task.programs.battle.BattleSnapshot;
+import com.heroes_task.programs.battle.BattleState;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import com.heroes_task.programs.search.LookaheadSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Снимок битвы двух пресетов на 1500 очков: форк снимка, доигровка на 20 раундов и выбор цели перебором
+ * с лимитом 256 доигровок без бюджета времени.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotBenchmark {
+    private static final int HORIZON_ROUNDS = 20;
+
+    private BattleSnapshot root;
+    private int attacker;
+    private int[] candidates;
+    private int candidateCount;
+    private int[] buffer;
+    private SplittableRandom random;
+    private LookaheadSearch search;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        Army player = ArmyCopier.copyMirrored(preset(1));
+        Army computer = preset(2);
+        BattleState state = new BattleState(player.getUnits(), computer.getUnits());
+        root = state.snapshot(state.getTurnOrder()[0]);
+        attacker = root.nextAttacker();
+        candidates = new int[root.size()];
+        candidateCount = root.collectTargets(attacker, candidates);
+        buffer = new int[root.size()];
+        random = new SplittableRandom(1);
+        search = new LookaheadSearch(0, 256, HORIZON_ROUNDS, 1);
+    }
+
+    private static Army preset(long seed) {
+        return GeneratePresetImpl.builder()
+                .seed(seed)
+                .log(AsyncBattleLog.off())
+                .build()
+                .generate(BenchmarkUnits.unitTypes(), 1500);
+    }
+
+    @Benchmark
+    public BattleSnapshot fork() {
+        return root.fork();
+    }
+
+    @Benchmark
+    public BattleSnapshot playout() {
+        BattleSnapshot snapshot = root.fork();
+        snapshot.playout(random, HORIZON_ROUNDS, buffer);
+        return snapshot;
+    }
+
+    @Benchmark
+    public int search() {
+        return search.choose(root, attacker, candidates, candidateCount, seed++);
+    }
+}
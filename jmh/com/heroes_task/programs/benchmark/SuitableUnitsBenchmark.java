@@ -0,0 +1,66 @@
+package com.heroes_task.programs.benchmark;
+
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.SuitableForAttackUnitsFinderImpl;
+import com.heroes_task.programs.battle.FrontLineIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SuitableForAttackUnitsFinderImpl#getSuitableUnits} на трех полностью занятых рядах зоны компьютера.
+ * С параметром {@code indexed} в потоке привязан {@link FrontLineIndex}, как во время битвы;
+ * без него ряды просматриваются целиком.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SuitableUnitsBenchmark {
+
+    @Param({"true", "false"})
+    private boolean isLeftArmyTarget;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private SuitableForAttackUnitsFinderImpl finder;
+    private List<List<Unit>> unitsByRow;
+    private FrontLineIndex previous;
+
+    @Setup
+    public void setUp() {
+        finder = new SuitableForAttackUnitsFinderImpl();
+        unitsByRow = new ArrayList<>();
+        FrontLineIndex index = new FrontLineIndex(BenchmarkUnits.WIDTH, BenchmarkUnits.HEIGHT);
+        for (int x = 0; x < 3; x++) {
+            List<Unit> row = new ArrayList<>();
+            for (int y = 0; y < BenchmarkUnits.HEIGHT; y++) {
+                Unit unit = BenchmarkUnits.unitAt("unit " + x + "_" + y, x, y);
+                row.add(unit);
+                index.add(FrontLineIndex.COMPUTER, unit, x, y);
+            }
+            unitsByRow.add(row);
+        }
+        previous = FrontLineIndex.bind(indexed ? index : null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FrontLineIndex.bind(previous);
+    }
+
+    @Benchmark
+    public List<Unit> getSuitableUnits() {
+        return finder.getSuitableUnits(unitsByRow, isLeftArmyTarget);
+    }
+}
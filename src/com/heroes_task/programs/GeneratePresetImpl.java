@@ -3,108 +3,142 @@ package com.heroes_task.programs;
 import com.battle.heroes.army.Army;
 import com.battle.heroes.army.Unit;
 import com.battle.heroes.army.programs.GeneratePreset;
-
-import java.util.*;
+import com.heroes_task.programs.battle.ArmyCopier;
+import com.heroes_task.programs.battle.Battlefield;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import com.heroes_task.programs.log.LogLevel;
+import com.heroes_task.programs.metrics.SimulationMetrics;
+import com.heroes_task.programs.preset.ArmyCompositionOptimizer;
+import com.heroes_task.programs.preset.PlacementAllocator;
+import com.heroes_task.programs.preset.PlacementStrategy;
+import com.heroes_task.programs.preset.UnitScorer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 public class GeneratePresetImpl implements GeneratePreset {
 
     /**
-     * Представляет собой фиксированное значение ширины, используемое для размещения координат в системе координат.
-     * Обычно используется в расчетах или методах, требующих стандартного измерения ширины.
-     * Это значение является неизменяемым и устанавливается как константа.
+     * Наибольшее количество юнитов одного типа в армии. Общее правило для всех генераторов пресетов.
+     */
+    public static final int MAX_UNITS_PER_TYPE = 11;
+
+    /**
+     * Ценность юнита, которую максимизирует подбор состава армии.
+     */
+    private final UnitScorer scorer;
+    /**
+     * Правило расстановки юнитов по зоне.
+     */
+    private final PlacementStrategy placement;
+    /**
+     * Источник случайности расстановки. При заданном зерне последовательность сгенерированных армий повторяется.
+     */
+    private final Random random;
+    /**
+     * Журнал генерации: начало и конец на уровне {@link LogLevel#SUMMARY}, расстановка юнитов — {@link LogLevel#DETAILS}.
      */
-    private static final int WIDTH_PLACE = 3;
+    private final AsyncBattleLog log;
     /**
-     * Константа, представляющая размер по высоте, используемый для вычислений координат на основе сетки
-     * в классе GeneratePresetImpl.
-     * <p>
-     * HEIGHT_PLACE определяет верхнюю границу для вычислений, связанных с высотой,
-     * и используется в качестве фиксированного значения для определения вертикального предела
-     * при генерации или проверке координат единиц измерения.
+     * Поле боя: армия компьютера расставляется в его зоне (на стандартном поле — 3 ряда по 21 клетке).
      */
-    private static final int HEIGHT_PLACE = 21;
+    private final Battlefield battlefield;
+    /**
+     * Оптимизатор последнего набора типов юнитов. Его таблица переиспользуется между вызовами,
+     * поэтому перебор бюджетов на одном наборе типов не пересчитывает ее заново.
+     */
+    private ArmyCompositionOptimizer optimizer;
+
+    public GeneratePresetImpl() {
+        this(builder());
+    }
+
+    private GeneratePresetImpl(Builder builder) {
+        this.scorer = builder.scorer;
+        this.placement = builder.placement;
+        this.random = builder.seed == null ? new Random() : new Random(builder.seed);
+        this.log = builder.log;
+        this.battlefield = builder.battlefield;
+    }
+
+    /**
+     * @return построитель генератора; без настроек строит то же, что {@link #GeneratePresetImpl()}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
 
     @Override
     public Army generate(List<Unit> unitList, int maxPoints) {
-        System.out.println("start generating");
+        log.message(LogLevel.SUMMARY, "start generating");
 
         // Армия и вспомогательные переменные
         Army computerArmy = new Army();
         List<Unit> selectedUnits = new ArrayList<>();
         int currentPoints = 0;
 
-        // Множество занятых координат
-        Set<String> occupiedCoordinates = new HashSet<>();
-        Random random = new Random();
+        // Оптимальный состав армии: сколько юнитов каждого типа купить в пределах бюджета
+        ArmyCompositionOptimizer composition = optimizerFor(unitList);
+        int[] counts = composition.solve(maxPoints);
+        List<Unit> unitTypes = composition.getUnitTypes();
 
-        // Сортировка юнитов по эффективности
-        unitList.sort(Comparator.comparingDouble(GeneratePresetImpl::calculateUnitEfficiency));
+        // Свободные клетки зоны; передний ряд компьютера — с наибольшим x
+        PlacementAllocator zone = new PlacementAllocator(battlefield.getDeploymentDepth(), battlefield.getHeight(),
+                true, random);
 
         // Генерация армии
-        for (Unit unit : unitList) {
-            int unitCost = unit.getCost();
-            int unitCount = 0;
-
-            // Остановка при переполнении по очкам
-            while (unitCount < 11 && currentPoints + unitCost <= maxPoints) {
-                // Генерация уникальной случайной координаты
-                String coordinateKey = getUniqueCoordinate(occupiedCoordinates, WIDTH_PLACE, HEIGHT_PLACE, random);
+        for (int t = 0; t < unitTypes.size(); t++) {
+            if (counts[t] == 0) {
+                continue;
+            }
+            // Шаблон с неизменяемыми картами бонусов: все юниты типа разделяют их вместо копий
+            Unit type = unitTypes.get(t);
+            Unit unit = cloneWithCoordinates(type.getName(), type.getxCoordinate(), type.getyCoordinate(), type);
+            for (int unitCount = 0; unitCount < counts[t]; unitCount++) {
+                // Свободная клетка по правилу расстановки
+                int cell = placement.place(unit, zone);
 
                 // Клонируем юнита с новой координатой
-
                 Unit newUnit = cloneWithCoordinates(
                         unit.getUnitType() + " " + unitCount,
-                        coordinateKey, unit);
+                        zone.xOf(cell), zone.yOf(cell), unit);
 
                 // Логируем, добавляем в список
-                System.out.println(newUnit.getName() + " x:" + newUnit.getxCoordinate() + " y:" + newUnit.getyCoordinate());
+                if (log.isEnabled(LogLevel.DETAILS)) {
+                    log.message(LogLevel.DETAILS,
+                            newUnit.getName() + " x:" + newUnit.getxCoordinate() + " y:" + newUnit.getyCoordinate());
+                }
                 selectedUnits.add(newUnit);
 
                 // Обновляем состояние
-                currentPoints += unitCost;
-                unitCount++;
+                currentPoints += unit.getCost();
             }
         }
 
         // Устанавливаем список юнитов и очки в армию
         computerArmy.setUnits(selectedUnits);
         computerArmy.setPoints(currentPoints);
+        if (SimulationMetrics.isEnabled()) {
+            // Повторных попыток расстановки нет: выдача клеток всегда удается с первого раза
+            SimulationMetrics.global().recordPreset(selectedUnits.size(), currentPoints, maxPoints);
+        }
 
-        System.out.println("finish generating");
+        log.message(LogLevel.SUMMARY, "finish generating");
         return computerArmy;
     }
 
     /**
-     * Рассчитывает эффективность юнита на основе его базовой атаки, здоровья и стоимости.
-     * Эффективность определяется как отношение базовой атаки и здоровья к стоимости юнита.
-     * Если стоимость равна нулю или меньше, метод возвращает 0,0.
+     * Возвращает оптимизатор для заданного набора типов юнитов, переиспользуя предыдущий, если набор не изменился.
      *
-     * @param unit единичный объект, для которого необходимо рассчитать эффективность
-     * @return рассчитанная эффективность в виде двойного значения или 0,0, если удельная стоимость равна нулю или отрицательна
+     * @param unitList шаблоны юнитов, по одному на тип
+     * @return оптимизатор состава армии
      */
-    private static double calculateUnitEfficiency(Unit unit) {
-        double cost = unit.getCost();
-        return cost > 0 ? (unit.getBaseAttack() / cost + unit.getHealth() / cost) : 0.0;
-    }
-
-    /**
-     * Генерирует уникальную координату в пределах заданных размеров по ширине и высоте,
-     * которая еще не присутствует в заданном наборе занятых координат.
-     *
-     * @param occupiedCoordinates набор строк, представляющих уже занятые координаты
-     * @param width               ширина координатной сетки
-     * @param height              высота координатной сетки
-     * @param random              экземпляр Random, используемый для генерации случайных координат
-     * @return уникальная строка координат в формате "x_y"
-     */
-    private static String getUniqueCoordinate(Set<String> occupiedCoordinates, int width, int height, Random random) {
-        String coordinateKey;
-        do {
-            int x = random.nextInt(width);
-            int y = random.nextInt(height);
-            coordinateKey = x + "_" + y;
-        } while (!occupiedCoordinates.add(coordinateKey)); // .add вернет false для уже существующей координаты
-        return coordinateKey;
+    private synchronized ArmyCompositionOptimizer optimizerFor(List<Unit> unitList) {
+        if (optimizer == null || !optimizer.isBuiltFor(unitList)) {
+            optimizer = new ArmyCompositionOptimizer(unitList, MAX_UNITS_PER_TYPE, battlefield.getZoneCells(), scorer);
+        }
+        return optimizer;
     }
 
     /**
@@ -122,6 +156,19 @@ public class GeneratePresetImpl implements GeneratePreset {
         int x = Integer.parseInt(coordinates[0]);
         int y = Integer.parseInt(coordinates[1]);
 
+        return cloneWithCoordinates(newName, x, y, unit);
+    }
+
+    /**
+     * Клонирует юнита в клетку, выданную расстановкой, без разбора строкового ключа.
+     *
+     * @param newName новое уникальное имя
+     * @param x       новая координата x
+     * @param y       новая координата y
+     * @param unit    исходный объект, из которого будут скопированы свойства
+     * @return новый экземпляр модуля с обновленным названием и координатами
+     */
+    private Unit cloneWithCoordinates(String newName, int x, int y, Unit unit) {
         // Возвращаем новый объект типа Unit с обновленными значениями
         return new Unit(
                 newName,                        // Уникальное имя юнита
@@ -130,10 +177,69 @@ public class GeneratePresetImpl implements GeneratePreset {
                 unit.getBaseAttack(),
                 unit.getCost(),
                 unit.getAttackType(),
-                new HashMap<>(unit.getAttackBonuses()),  // Создаем копии коллекций для независимости
-                new HashMap<>(unit.getDefenceBonuses()),
+                ArmyCopier.shareBonuses(unit.getAttackBonuses()),  // Бонусы не меняются: клоны разделяют одну карту
+                ArmyCopier.shareBonuses(unit.getDefenceBonuses()),
                 x,                              // Новая координата x
                 y                               // Новая координата y
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Параметры генератора. По умолчанию: ценность {@link UnitScorer#ATTACK_PLUS_HEALTH}, случайная расстановка
+     * без заданного зерна, общий консольный журнал и стандартное поле.
+     */
+    public static final class Builder {
+        private UnitScorer scorer = UnitScorer.ATTACK_PLUS_HEALTH;
+        private PlacementStrategy placement = PlacementStrategy.RANDOM;
+        private Long seed;
+        private AsyncBattleLog log = AsyncBattleLog.defaultLog();
+        private Battlefield battlefield = Battlefield.STANDARD;
+
+        private Builder() {
+        }
+
+        /**
+         * @param scorer ценность юнита, которую максимизирует подбор состава армии
+         */
+        public Builder scorer(UnitScorer scorer) {
+            this.scorer = scorer;
+            return this;
+        }
+
+        /**
+         * @param placement правило расстановки юнитов по зоне
+         */
+        public Builder placement(PlacementStrategy placement) {
+            this.placement = placement;
+            return this;
+        }
+
+        /**
+         * @param seed зерно расстановки: при заданном зерне последовательность сгенерированных армий повторяется
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param log журнал генерации; {@link AsyncBattleLog#off()} для массовой генерации
+         */
+        public Builder log(AsyncBattleLog log) {
+            this.log = log;
+            return this;
+        }
+
+        /**
+         * @param battlefield поле боя, в зоне компьютера которого расставляется армия
+         */
+        public Builder battlefield(Battlefield battlefield) {
+            this.battlefield = battlefield;
+            return this;
+        }
+
+        public GeneratePresetImpl build() {
+            return new GeneratePresetImpl(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.heroes_task.programs;
+
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.battle.heroes.army.programs.EdgeDistance;
+
+import java.util.List;
+
+/**
+ * Поиск пути сразу до нескольких целей: одно поле расстояний от атакующего вместо отдельного поиска на каждую цель.
+ */
+public interface ReachableTargetsFinder {
+
+    /**
+     * Строит поле расстояний от атакующего юнита и возвращает достижимые цели из списка кандидатов,
+     * упорядоченные по длине пути (при равной длине — в порядке списка кандидатов).
+     *
+     * @param attackUnit       атакующий юнит
+     * @param candidates       возможные цели, например результат {@code getSuitableUnits}
+     * @param existingUnitList все юниты на поле
+     * @return координаты и длины путей достижимых целей; недостижимые и мертвые цели не попадают в список
+     */
+    List<EdgeDistance> getReachableTargets(Unit attackUnit, List<Unit> candidates, List<Unit> existingUnitList);
+
+    /**
+     * Возвращает путь до клетки по полю расстояний, построенному последним вызовом
+     * {@link #getReachableTargets} в этом потоке.
+     *
+     * @param x координата x цели
+     * @param y координата y цели
+     * @return путь от атакующего до цели включительно или пустой список, если цель недостижима
+     */
+    List<Edge> getPathToReachableTarget(int x, int y);
+}
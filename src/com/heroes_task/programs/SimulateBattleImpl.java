@@ -4,112 +4,308 @@ import com.battle.heroes.army.Army;
 import com.battle.heroes.army.Unit;
 import com.battle.heroes.army.programs.PrintBattleLog;
 import com.battle.heroes.army.programs.SimulateBattle;
-
-import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import com.heroes_task.programs.battle.BattleResult;
+import com.heroes_task.programs.battle.BattleState;
+import com.heroes_task.programs.battle.Battlefield;
+import com.heroes_task.programs.battle.FrontLineIndex;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import com.heroes_task.programs.log.LogLevel;
+import com.heroes_task.programs.metrics.BattleEvent;
+import com.heroes_task.programs.metrics.SimulationMetrics;
+import com.heroes_task.programs.path.OccupancyGrid;
+import com.heroes_task.programs.replay.BattleRecorder;
 
 public class SimulateBattleImpl implements SimulateBattle {
     private PrintBattleLog printBattleLog; // Позволяет логировать. Использовать после каждой атаки юнита
+    /**
+     * Предельное количество раундов, после которого битва считается ничьей.
+     * Нужен безголовым симуляциям: армии, юниты которых не могут дотянуться друг до друга, иначе бьются вечно.
+     */
+    private final int maxRounds;
+    /**
+     * Консольный журнал: итог битвы и, на уровне {@link LogLevel#ATTACKS}, каждая атака.
+     * Пишется асинхронно, не задерживая цикл битвы.
+     */
+    private final AsyncBattleLog log;
+    /**
+     * Запись битвы (раунды, атаки, гибель, шаги по путям) или null, если битва не записывается.
+     */
+    private final BattleRecorder recorder;
+    /**
+     * Поле битвы, на котором стоят армии.
+     */
+    private final Battlefield battlefield;
+
+    public SimulateBattleImpl() {
+        this(builder());
+    }
+
+    private SimulateBattleImpl(Builder builder) {
+        this.printBattleLog = builder.printBattleLog;
+        this.maxRounds = builder.maxRounds;
+        this.log = builder.log;
+        this.recorder = builder.recorder;
+        this.battlefield = builder.battlefield;
+    }
+
+    /**
+     * @return построитель симуляции; без настроек строит то же, что {@link #SimulateBattleImpl()}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
 
     @Override
     public void simulate(Army playerArmy, Army computerArmy) throws InterruptedException {
         // Ваше решение
-        // Получаем юниты обеих армий
-        List<Unit> playerUnits = playerArmy.getUnits();
-        List<Unit> computerUnits = computerArmy.getUnits();
+        BattleResult result = play(playerArmy, computerArmy);
 
-        playerUnits.sort((u1, u2) -> Integer.compare(u2.getBaseAttack(), u1.getBaseAttack()));
-        computerUnits.sort((u1, u2) -> Integer.compare(u2.getBaseAttack(), u1.getBaseAttack()));
+        //Объявляем победителя
+        declareWinner(result);
+    }
+
+    /**
+     * Проводит битву до победы одной из сторон (или до исчерпания лимита раундов) и возвращает ее итог,
+     * ничего не выводя на консоль.
+     *
+     * @param playerArmy   армия игрока
+     * @param computerArmy армия компьютера
+     * @return итог битвы
+     * @throws InterruptedException если поток, выполняющий симуляцию, прерывается во время обработки.
+     */
+    public BattleResult play(Army playerArmy, Army computerArmy) throws InterruptedException {
+        BattleEvent event = new BattleEvent();
+        event.begin();
+        // Флаг читается один раз: метрики, включенные посреди битвы, начнут писаться со следующей
+        SimulationMetrics metrics = SimulationMetrics.isEnabled() ? SimulationMetrics.global() : null;
+        // Раскладываем обе армии в компактное состояние; порядок ходов сортируется один раз на всю битву
+        BattleState state = new BattleState(playerArmy.getUnits(), computerArmy.getUnits(), battlefield);
+        // Поиск пути и поиск целей, вызываемые программами юнитов из этого потока,
+        // будут читать живую карту занятости и индекс передней линии битвы
+        BattleState previousState = BattleState.bind(state);
+        OccupancyGrid previousGrid = OccupancyGrid.bind(state.getGrid());
+        FrontLineIndex previousFrontLine = FrontLineIndex.bind(state.getFrontLine());
+        BattleRecorder previousRecorder = null;
+        if (recorder != null) {
+            previousRecorder = BattleRecorder.bind(recorder);
+            recorder.battleStart(state);
+        }
 
         // Имитируйте боевые раунды до тех пор, пока в обеих армиях есть живые юниты
-        while (hasAliveUnits(playerUnits) && hasAliveUnits(computerUnits)) {
-            // Симулируем раунд
-            simulateRound(playerUnits, computerUnits);
+        int rounds = 0;
+        try {
+            while (state.bothSidesAlive() && rounds < maxRounds) {
+                if (recorder != null) {
+                    recorder.roundStart(rounds);
+                }
+                // Симулируем раунд
+                long roundStart = metrics != null ? System.nanoTime() : 0L;
+                int attacks = simulateRound(state);
+                if (metrics != null) {
+                    metrics.recordRound(System.nanoTime() - roundStart, attacks);
+                }
+                rounds++;
+            }
+        } finally {
+            BattleState.bind(previousState);
+            OccupancyGrid.bind(previousGrid);
+            FrontLineIndex.bind(previousFrontLine);
+            if (recorder != null) {
+                BattleRecorder.bind(previousRecorder);
+            }
         }
 
-        //Объявляем победителя
-        declareWinner(playerUnits, computerUnits);
+        BattleResult result = new BattleResult(resolveOutcome(state), rounds,
+                state.getPlayerHealth(), state.getComputerHealth());
+        if (metrics != null) {
+            metrics.recordBattle(rounds);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.units = state.size();
+            event.rounds = rounds;
+            event.outcome = result.getOutcome().name();
+            event.playerHealth = result.getPlayerHealth();
+            event.computerHealth = result.getComputerHealth();
+            event.commit();
+        }
+        if (recorder != null) {
+            recorder.battleEnd(result);
+        }
+        return result;
     }
 
     /**
-     * Проверяет, содержит ли заданный список юнитов какие-либо живые юниты.
+     * Определяет исход битвы по наличию живых юнитов. Если живы обе армии (исчерпан лимит раундов), это ничья.
      *
-     * @param units список юнитов для проверки на наличие жизни
-     * @return true, если хотя бы один юнит в списке жив, false в противном случае
+     * @param state состояние завершенной битвы
+     * @return исход битвы
      */
-    private boolean hasAliveUnits(List<Unit> units) {
-        return units.stream().anyMatch(Unit::isAlive);
+    private BattleResult.Outcome resolveOutcome(BattleState state) {
+        boolean playerAlive = state.getPlayerAlive() > 0;
+        boolean computerAlive = state.getComputerAlive() > 0;
+        if (playerAlive && !computerAlive) {
+            return BattleResult.Outcome.PLAYER_WIN;
+        } else if (computerAlive && !playerAlive) {
+            return BattleResult.Outcome.COMPUTER_WIN;
+        }
+        return BattleResult.Outcome.DRAW;
     }
 
     /**
      * Моделирует один раунд битвы, в котором юниты из армий игрока и компьютера ходят по очереди
      * в порядке их базовой силы атаки. Юниты выполняют действия, например атакуют цель, если это возможно.
+     * Ходят только юниты, живые на начало раунда и дожившие до своей очереди.
      *
-     * @param playerUnits список юнитов из армии игрока, которые будут участвовать в раунде
-     * @param computerUnits список юнитов из армии компьютера, которые будут участвовать в раунде
+     * @param state состояние битвы
+     * @return количество ходов, в которых программа юнита нашла цель
      * @throws InterruptedException если поток, выполняющий симуляцию, прерывается во время обработки.
      */
-    private void simulateRound(List<Unit> playerUnits, List<Unit> computerUnits) throws InterruptedException {
-        // Создайте приоритетную очередь для поддержания порядка атаки
-        Queue<Unit> allUnits = new PriorityQueue<>((u1, u2) -> Integer.compare(u2.getBaseAttack(), u1.getBaseAttack()));
-        allUnits.addAll(playerUnits.stream().filter(Unit::isAlive).toList());
-        allUnits.addAll(computerUnits.stream().filter(Unit::isAlive).toList());
-
-        // Перебирайте юниты и выполняйте их ходы
-        while (!allUnits.isEmpty()) {
-            Unit currentUnit = allUnits.poll();
-
-            // Пропускать мертвые объекты
-            if (!currentUnit.isAlive()) continue;
+    private int simulateRound(BattleState state) throws InterruptedException {
+        int attacks = 0;
+        // Порядок ходов посчитан заранее: перебираем его, пропуская мертвых
+        for (int attackerIndex : state.getTurnOrder()) {
+            if (!state.isAlive(attackerIndex)) continue;
 
             // Найдите цель для атаки
-            Unit target = currentUnit.getProgram().attack();
+            Unit target = state.getUnit(attackerIndex).getProgram().attack();
+            // Программа могла передвинуть юнита
+            state.sync(attackerIndex);
+            if (target == null) continue;
+            attacks++;
+
+            // Программы из библиотеки сами наносят урон цели — подтягиваем его в состояние и в запись битвы
+            int targetIndex = state.indexOf(target);
+            if (targetIndex >= 0) {
+                boolean wasAlive = state.isAlive(targetIndex);
+                int healthBefore = state.getHealth(targetIndex);
+                state.sync(targetIndex);
+                int health = state.getHealth(targetIndex);
+                if (recorder != null && wasAlive) {
+                    if (health != healthBefore) {
+                        recorder.attack(attackerIndex, targetIndex, healthBefore - health, health);
+                    }
+                    if (!state.isAlive(targetIndex)) {
+                        recorder.death(targetIndex);
+                    }
+                }
+            }
 
             // Если действительная цель найдена и активна, выполните действие
-            if (target != null && target.isAlive()) {
-                attackAndLog(currentUnit, target);
+            if (target.isAlive()) {
+                attackAndLog(state, attackerIndex, target, targetIndex);
             }
         }
+        return attacks;
     }
 
     /**
      * Выполняет атаку от атакующего юнита к целевому юниту, нанося урон и обновляя статус цели. Кроме того, записывает атаку в журнал, если ведение журнала включено.
      *
-     * @param attacker сторона — юнит, выполняющий атаку
-     * @param target — юнит, получающий атаку
+     * @param state         состояние битвы
+     * @param attackerIndex индекс юнита, выполняющего атаку
+     * @param target        юнит, получающий атаку
+     * @param targetIndex   индекс цели в состоянии или -1, если цель не участвует в битве
      */
-    private void attackAndLog(Unit attacker, Unit target) {
-        // Выполнять расчеты атаки
-        int damage = attacker.getBaseAttack();
-        target.setHealth(target.getHealth() - damage);
-
-        // Настройка панели инструментов…
-        if (target.getHealth() <= 0) {
-            target.setAlive(false);
+    private void attackAndLog(BattleState state, int attackerIndex, Unit target, int targetIndex) {
+        // Выполнять расчеты атаки: урон по цели из битвы берется из таблицы с учетом бонусов
+        int damage = targetIndex >= 0 ? state.getDamage(attackerIndex, targetIndex) : state.getAttack(attackerIndex);
+        if (targetIndex >= 0) {
+            boolean killed = state.damage(targetIndex, damage);
+            if (recorder != null) {
+                recorder.attack(attackerIndex, targetIndex, damage, state.getHealth(targetIndex));
+                if (killed) {
+                    recorder.death(targetIndex);
+                }
+            }
+        } else {
+            target.setHealth(target.getHealth() - damage);
+            if (target.getHealth() <= 0) {
+                target.setAlive(false);
+            }
         }
 
         // Регистрируйте атаку, если ведение журнала включено
         if (printBattleLog != null) {
-            printBattleLog.printBattleLog(attacker, target);
+            printBattleLog.printBattleLog(state.getUnit(attackerIndex), target);
         }
+        log.attack(state.getUnit(attackerIndex), target, damage, target.getHealth());
     }
 
     /**
-     * Определяет победителя битвы, проверяя, есть ли у игрока или компьютера выжившие юниты.
-     * Выводит результат битвы на консоль.
+     * Объявляет победителя битвы по ее итогу.
+     * Выводит результат битвы в консольный журнал.
      *
-     * @param playerUnits список юнитов, принадлежащих армии игрока
-     * @param computerUnits список юнитов, принадлежащих армии компьютера
+     * @param result итог битвы
      */
-    private void declareWinner(List<Unit> playerUnits, List<Unit> computerUnits) {
+    private void declareWinner(BattleResult result) {
         // Объявляйте результаты, основанные на наличии живых подразделений в соответствующих армиях
-        if (hasAliveUnits(playerUnits)) {
-            System.out.println("Игрок выигрывает!");
-        } else if (hasAliveUnits(computerUnits)) {
-            System.out.println("Компьютер побеждает!");
-        } else {
-            System.out.println("Это ничья!");
+        switch (result.getOutcome()) {
+            case PLAYER_WIN -> log.message(LogLevel.SUMMARY, "Игрок выигрывает!");
+            case COMPUTER_WIN -> log.message(LogLevel.SUMMARY, "Компьютер побеждает!");
+            default -> log.message(LogLevel.SUMMARY, "Это ничья!");
+        }
+    }
+
+    /**
+     * Параметры симуляции. По умолчанию: без журнала атак библиотеки, без лимита раундов, общий консольный журнал,
+     * без записи и стандартное поле.
+     */
+    public static final class Builder {
+        private PrintBattleLog printBattleLog;
+        private int maxRounds = Integer.MAX_VALUE;
+        private AsyncBattleLog log = AsyncBattleLog.defaultLog();
+        private BattleRecorder recorder;
+        private Battlefield battlefield = Battlefield.STANDARD;
+
+        private Builder() {
+        }
+
+        /**
+         * @param printBattleLog журнал атак или null, если журнал не нужен
+         */
+        public Builder printBattleLog(PrintBattleLog printBattleLog) {
+            this.printBattleLog = printBattleLog;
+            return this;
+        }
+
+        /**
+         * @param maxRounds предельное количество раундов битвы
+         */
+        public Builder maxRounds(int maxRounds) {
+            if (maxRounds < 1) {
+                throw new IllegalArgumentException("maxRounds must be positive: " + maxRounds);
+            }
+            this.maxRounds = maxRounds;
+            return this;
+        }
+
+        /**
+         * @param log консольный журнал; {@link AsyncBattleLog#off()} для безголовых прогонов
+         */
+        public Builder log(AsyncBattleLog log) {
+            this.log = log;
+            return this;
+        }
+
+        /**
+         * @param recorder запись битвы или null
+         */
+        public Builder recorder(BattleRecorder recorder) {
+            this.recorder = recorder;
+            return this;
+        }
+
+        /**
+         * @param battlefield поле битвы
+         */
+        public Builder battlefield(Battlefield battlefield) {
+            this.battlefield = battlefield;
+            return this;
+        }
+
+        public SimulateBattleImpl build() {
+            return new SimulateBattleImpl(this);
         }
     }
-}
\ No newline at end of file
+}
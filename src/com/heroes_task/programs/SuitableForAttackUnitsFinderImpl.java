@@ -1,33 +1,96 @@
-package com.heroes_task.programs;
-
-import com.battle.heroes.army.Unit;
-import com.battle.heroes.army.programs.SuitableForAttackUnitsFinder;
-
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-
-public class SuitableForAttackUnitsFinderImpl implements SuitableForAttackUnitsFinder {
-
-    @Override
-    public List<Unit> getSuitableUnits(List<List<Unit>> unitsByRow, boolean isLeftArmyTarget) {
-        // Ваше решение
-        List<Unit> suitableUnits = new ArrayList<>();
-        // Для каждой строки в unitsByRow
-        for (List<Unit> row : unitsByRow) {
-            // Найти цель с минимальной или максимальной координатой Y в зависимости от isLeftArmyTarget
-            Comparator<Unit> comparator = isLeftArmyTarget
-                    ? Comparator.comparingInt(Unit::getyCoordinate) // Минимальная координата Y
-                    : Comparator.comparingInt(Unit::getyCoordinate).reversed(); // Максимальная координата Y
-
-            // Найти подходящего юнита
-            row.stream()
-                    .filter(Unit::isAlive) // Только живые юниты
-                    .min(comparator) // Выбираем минимальную/максимальную координату Y
-                    .ifPresent(suitableUnits::add); // Если цель найдена, добавляем её в список
-        }
-
-        return suitableUnits;
-    }
-
-}
+package com.heroes_task.programs;
+
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.SuitableForAttackUnitsFinder;
+import com.heroes_task.programs.battle.FrontLineIndex;
+import com.heroes_task.programs.metrics.SimulationMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SuitableForAttackUnitsFinderImpl implements SuitableForAttackUnitsFinder {
+
+    @Override
+    public List<Unit> getSuitableUnits(List<List<Unit>> unitsByRow, boolean isLeftArmyTarget) {
+        // Ваше решение
+        List<Unit> suitableUnits = new ArrayList<>(unitsByRow.size());
+        // Если в потоке идет битва, передняя линия уже посчитана в ее индексе
+        FrontLineIndex frontLine = FrontLineIndex.current();
+
+        // Для каждой строки в unitsByRow
+        for (int i = 0; i < unitsByRow.size(); i++) {
+            // Найти цель с минимальной или максимальной координатой Y в зависимости от isLeftArmyTarget
+            Unit front = findFront(unitsByRow.get(i), isLeftArmyTarget, frontLine);
+            if (front != null) {
+                suitableUnits.add(front); // Если цель найдена, добавляем её в список
+            }
+        }
+
+        if (SimulationMetrics.isEnabled()) {
+            SimulationMetrics.global().recordSuitableUnits(suitableUnits.size());
+        }
+        return suitableUnits;
+    }
+
+    /**
+     * Находит живого юнита ряда с минимальной (isLeftArmyTarget) или максимальной координатой Y.
+     * Сначала пробует ответить по индексу передней линии: сторону и номер ряда определяет первый живой юнит списка.
+     * Если он зарегистрирован в индексе, {@code row} считается рядом армии привязанной битвы, и ответ индекса
+     * принимается без просмотра списка — достаточно, чтобы найденный юнит был жив.
+     * Если индекса нет, юнит в нем не зарегистрирован или ответ устарел, просматривает ряд целиком.
+     *
+     * @param row              юниты одного ряда (с одинаковой координатой X)
+     * @param isLeftArmyTarget true — искать минимальную координату Y, false — максимальную
+     * @param frontLine        индекс передней линии текущей битвы или null
+     * @return юнит передней линии ряда или null, если живых юнитов в ряду нет
+     */
+    private Unit findFront(List<Unit> row, boolean isLeftArmyTarget, FrontLineIndex frontLine) {
+        Unit anchor = null;
+        for (int i = 0; i < row.size() && anchor == null; i++) {
+            if (row.get(i).isAlive()) {
+                anchor = row.get(i);
+            }
+        }
+        if (anchor == null) {
+            return null; // Только живые юниты
+        }
+
+        if (frontLine != null) {
+            int side = sideOf(anchor, frontLine);
+            if (side >= 0 && frontLine.isConsistent(side)) {
+                Unit indexed = frontLine.front(side, anchor.getxCoordinate(), isLeftArmyTarget);
+                if (indexed != null && indexed.isAlive()) {
+                    return indexed;
+                }
+            }
+        }
+
+        // Выбираем минимальную/максимальную координату Y; при равенстве остается первый найденный юнит
+        Unit front = anchor;
+        for (int i = 0; i < row.size(); i++) {
+            Unit unit = row.get(i);
+            if (unit.isAlive() && (isLeftArmyTarget
+                    ? unit.getyCoordinate() < front.getyCoordinate()
+                    : unit.getyCoordinate() > front.getyCoordinate())) {
+                front = unit;
+            }
+        }
+        return front;
+    }
+
+    /**
+     * @return сторона, за которой юнит зарегистрирован в своей клетке индекса, или -1
+     */
+    private static int sideOf(Unit unit, FrontLineIndex frontLine) {
+        int x = unit.getxCoordinate();
+        int y = unit.getyCoordinate();
+        if (frontLine.unitAt(FrontLineIndex.PLAYER, x, y) == unit) {
+            return FrontLineIndex.PLAYER;
+        }
+        if (frontLine.unitAt(FrontLineIndex.COMPUTER, x, y) == unit) {
+            return FrontLineIndex.COMPUTER;
+        }
+        return -1;
+    }
+
+}
@@ -2,147 +2,220 @@ package com.heroes_task.programs;
 
 import com.battle.heroes.army.Unit;
 import com.battle.heroes.army.programs.Edge;
+import com.battle.heroes.army.programs.EdgeDistance;
 import com.battle.heroes.army.programs.UnitTargetPathFinder;
-
-import java.util.*;
-import java.util.stream.Collectors;
-
-public class UnitTargetPathFinderImpl implements UnitTargetPathFinder {
-    /**
-     * Представляет собой фиксированную константу, используемую для определения ширины координатного пространства в системе.
-     * Это значение в основном применяется в вычислениях или методах, требующих стандартизированного измерения ширины.
-     * Будучи неизменным, оно служит в качестве единой ссылки на размерность во всём классе.
-     */
-    private static final int WIDTH_PLACE = 27;
+import com.heroes_task.programs.battle.BattleState;
+import com.heroes_task.programs.battle.Battlefield;
+import com.heroes_task.programs.metrics.PathQueryEvent;
+import com.heroes_task.programs.metrics.SimulationMetrics;
+import com.heroes_task.programs.path.GridPathEngine;
+import com.heroes_task.programs.path.HierarchicalPathEngine;
+import com.heroes_task.programs.path.OccupancyGrid;
+import com.heroes_task.programs.replay.BattleRecorder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class UnitTargetPathFinderImpl implements UnitTargetPathFinder, ReachableTargetsFinder {
     /**
-     * Представляет собой фиксированное значение высоты, используемое для вычислений в системе координат на основе сетки.
-     * Эта константа определяет вертикальную границу для операций, требующих измерения высоты,
-     * и служит неизменяемым параметром для размещения или проверки единичных координат.
+     * Поле, на котором ищется путь при вызове вне битвы. Во время битвы размеры берутся из ее карты занятости.
      */
-    private static final int HEIGHT_PLACE = 21;
+    private final Battlefield battlefield;
+
+    public UnitTargetPathFinderImpl() {
+        this(Battlefield.STANDARD);
+    }
+
     /**
-     * Представляет возможные направления движения в двумерной сетке.
-     * Каждый подмассив содержит два целых числа, где первое целое число представляет
-     * изменение координаты x, а второе целое число представляет изменение координаты y.
-     *
-     * Эти направления соответствуют:
-     * - {-1, 0}: движение вверх (уменьшение координаты x).
-     * - {1, 0}: движение вниз (увеличение координаты x).
-     * - {0, -1}: движение влево (уменьшение координаты y).
-     * - {0, 1}: движение вправо (увеличение координаты y).
-     *
-     * Обычно используется для навигации или алгоритмов поиска пути в структуре 2D-сетки.
+     * @param battlefield поле, на котором ищется путь при вызове вне битвы
      */
-    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    public UnitTargetPathFinderImpl(Battlefield battlefield) {
+        this.battlefield = battlefield;
+    }
 
     @Override
     public List<Edge> getTargetPath(Unit attackUnit, Unit targetUnit, List<Unit> existingUnitList) {
         // Ваше решение
-        Set<String> occupiedCells = getOccupiedCells(existingUnitList, attackUnit, targetUnit);
-
-        // Карта расстояний
-        Map<Node, Integer> distances = new HashMap<>();
-        Map<Node, Node> previous = new HashMap<>();
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(distances::get));
-
-        // Инициализируем стартовый узел
-        Node startNode = new Node(attackUnit.getxCoordinate(), attackUnit.getyCoordinate());
-        distances.put(startNode, 0);
-        queue.add(startNode);
-
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
-
-            // Если достигли целевой точки, прерываем цикл
-            if (current.getX() == targetUnit.getxCoordinate() && current.getY() == targetUnit.getyCoordinate()) {
-                break;
-            }
-
-            for (int[] dir : DIRECTIONS) {
-                int neighborX = current.getX() + dir[0];
-                int neighborY = current.getY() + dir[1];
-
-                if (!isValid(neighborX, neighborY, occupiedCells)) {
-                    continue; // Пропускаем недопустимые клетки
-                }
-
-                Node neighbor = new Node(neighborX, neighborY);
-                int currentDistance = distances.getOrDefault(current, Integer.MAX_VALUE);
-                int newDistance = currentDistance + 1;
-
-                if (newDistance < distances.getOrDefault(neighbor, Integer.MAX_VALUE)) {
-                    distances.put(neighbor, newDistance);
-                    previous.put(neighbor, current);
-                    queue.add(neighbor);
-                }
+        PathQueryEvent event = new PathQueryEvent();
+        event.begin();
+        int startX = attackUnit.getxCoordinate();
+        int startY = attackUnit.getyCoordinate();
+        int targetX = targetUnit.getxCoordinate();
+        int targetY = targetUnit.getyCoordinate();
+        // Если в потоке идет битва с живой картой занятости, читаем ее напрямую.
+        // Клетки атакующего и цели движок и так считает проходимыми
+        OccupancyGrid grid = battleGrid(attackUnit);
+        List<Edge> path;
+        String engineName;
+        int expanded;
+        int queuePeak;
+        if (grid != null && grid.getHierarchy() != null) {
+            HierarchicalPathEngine hierarchy = grid.getHierarchy();
+            path = hierarchy.findPath(startX, startY, targetX, targetY);
+            engineName = PathQueryEvent.HIERARCHICAL;
+            expanded = hierarchy.getLastExpanded();
+            queuePeak = hierarchy.getLastQueuePeak();
+        } else {
+            GridPathEngine engine;
+            if (grid != null) {
+                // Буферы поиска закреплены за потоком: запрос не выделяет память, кроме возвращаемого пути
+                engine = GridPathEngine.forCurrentThread(grid.getWidth(), grid.getHeight());
+                path = engine.findPath(grid, startX, startY, targetX, targetY);
+            } else {
+                // Вызов вне битвы: собираем занятость по списку юнитов
+                engine = GridPathEngine.forCurrentThread(battlefield.getWidth(), battlefield.getHeight());
+                markOccupiedCells(engine, existingUnitList, attackUnit, targetUnit);
+                path = engine.findPath(startX, startY, targetX, targetY);
             }
+            engineName = PathQueryEvent.BFS;
+            expanded = engine.getLastExpanded();
+            queuePeak = engine.getLastQueuePeak();
         }
-
-        return constructPath(previous, attackUnit, targetUnit);
-    }
-
-    private Set<String> getOccupiedCells(List<Unit> existingUnitList, Unit attackUnit, Unit targetUnit) {
-        return existingUnitList.stream()
-                .filter(unit -> unit.isAlive() && unit != attackUnit && unit != targetUnit)
-                .map(unit -> unit.getxCoordinate() + "," + unit.getyCoordinate())
-                .collect(Collectors.toSet());
-    }
-
-    private boolean isValid(int x, int y, Set<String> occupiedCells) {
-        return x >= 0 && x < WIDTH_PLACE && y >= 0 && y < HEIGHT_PLACE && !occupiedCells.contains(x + "," + y);
+        // Недостижимая цель дает путь из одной целевой клетки
+        boolean reached = path.size() > 1 || (startX == targetX && startY == targetY);
+        recordQuery(event, engineName, startX, startY, targetX, targetY, expanded, queuePeak,
+                reached ? path.size() - 1 : -1);
+
+        // Если битва записывается, по этому пути программа юнита сейчас пойдет
+        BattleRecorder recorder = BattleRecorder.current();
+        if (recorder != null) {
+            recorder.path(attackUnit, path);
+        }
+        return path;
     }
 
-    private List<Edge> constructPath(Map<Node, Node> previous, Unit attackUnit, Unit targetUnit) {
-        Deque<Edge> pathStack = new ArrayDeque<>();
-        Node current = new Node(targetUnit.getxCoordinate(), targetUnit.getyCoordinate());
-
-        // Построение пути и добавление в стек
-        while (current != null) {
-            pathStack.push(new Edge(current.getX(), current.getY())); // Используем стек для добавления
-            current = previous.get(current);
+    @Override
+    public List<EdgeDistance> getReachableTargets(Unit attackUnit, List<Unit> candidates, List<Unit> existingUnitList) {
+        OccupancyGrid grid = battleGrid(attackUnit);
+        if (grid != null && grid.getHierarchy() != null) {
+            return getReachableTargets(grid.getHierarchy(), attackUnit, candidates);
+        }
+        PathQueryEvent event = new PathQueryEvent();
+        event.begin();
+
+        // Один поиск в ширину от атакующего; клетки целей остаются занятыми и достигаются через соседей
+        GridPathEngine engine;
+        if (grid != null) {
+            engine = GridPathEngine.forCurrentThread(grid.getWidth(), grid.getHeight());
+            engine.floodFill(grid, attackUnit.getxCoordinate(), attackUnit.getyCoordinate());
+        } else {
+            engine = GridPathEngine.forCurrentThread(battlefield.getWidth(), battlefield.getHeight());
+            markOccupiedCells(engine, existingUnitList, attackUnit, null);
+            engine.floodFill(attackUnit.getxCoordinate(), attackUnit.getyCoordinate());
         }
 
-        // Преобразуем стек в список
-        return new ArrayList<>(pathStack);
+        List<EdgeDistance> reachable = new ArrayList<>(candidates.size());
+        for (Unit candidate : candidates) {
+            if (!candidate.isAlive()) {
+                continue;
+            }
+            int distance = engine.distanceTo(candidate.getxCoordinate(), candidate.getyCoordinate());
+            if (distance >= 0) {
+                reachable.add(new EdgeDistance(candidate.getxCoordinate(), candidate.getyCoordinate(), distance));
+            }
+        }
+        // Сортировка устойчива: при равной длине пути сохраняется порядок кандидатов
+        reachable.sort(Comparator.comparingInt(EdgeDistance::getDistance));
+        // Поле расстояний учитывается одним запросом до ближайшей достижимой цели
+        EdgeDistance nearest = reachable.isEmpty() ? null : reachable.get(0);
+        recordQuery(event, PathQueryEvent.FLOOD, attackUnit.getxCoordinate(), attackUnit.getyCoordinate(),
+                nearest == null ? -1 : nearest.getX(), nearest == null ? -1 : nearest.getY(),
+                engine.getLastExpanded(), engine.getLastQueuePeak(), nearest == null ? -1 : nearest.getDistance());
+        return reachable;
     }
 
-    private static class Node {
-        private final int x;
-        private final int y;
-
-        public Node(int x, int y) {
-            this.x = x;
-            this.y = y;
+    /**
+     * Оценивает кандидатов иерархическим поиском: поле расстояний по всему большому полю было бы дороже
+     * нескольких отдельных запросов. Найденные пути запоминаются для {@link #getPathToReachableTarget(int, int)}.
+     */
+    private List<EdgeDistance> getReachableTargets(HierarchicalPathEngine hierarchy, Unit attackUnit,
+                                                   List<Unit> candidates) {
+        hierarchy.clearRememberedPaths();
+        List<EdgeDistance> reachable = new ArrayList<>(candidates.size());
+        for (Unit candidate : candidates) {
+            if (!candidate.isAlive()) {
+                continue;
+            }
+            PathQueryEvent event = new PathQueryEvent();
+            event.begin();
+            int distance = hierarchy.rememberPath(attackUnit.getxCoordinate(), attackUnit.getyCoordinate(),
+                    candidate.getxCoordinate(), candidate.getyCoordinate());
+            recordQuery(event, PathQueryEvent.HIERARCHICAL, attackUnit.getxCoordinate(), attackUnit.getyCoordinate(),
+                    candidate.getxCoordinate(), candidate.getyCoordinate(),
+                    hierarchy.getLastExpanded(), hierarchy.getLastQueuePeak(), distance);
+            if (distance >= 0) {
+                reachable.add(new EdgeDistance(candidate.getxCoordinate(), candidate.getyCoordinate(), distance));
+            }
         }
+        reachable.sort(Comparator.comparingInt(EdgeDistance::getDistance));
+        return reachable;
+    }
 
-        public int getX() {
-            return x;
+    @Override
+    public List<Edge> getPathToReachableTarget(int x, int y) {
+        OccupancyGrid grid = OccupancyGrid.current();
+        if (grid != null && grid.getHierarchy() != null) {
+            List<Edge> path = grid.getHierarchy().rememberedPath(x, y);
+            if (path != null) {
+                return path;
+            }
         }
+        GridPathEngine engine = grid != null
+                ? GridPathEngine.forCurrentThread(grid.getWidth(), grid.getHeight())
+                : GridPathEngine.forCurrentThread(battlefield.getWidth(), battlefield.getHeight());
+        return engine.pathTo(x, y);
+    }
 
-        public int getY() {
-            return y;
+    /**
+     * Учитывает запрос в метриках симуляции и, если идет запись JFR, завершает его событие.
+     *
+     * @param event  событие запроса, начатое перед поиском
+     * @param length длина пути в шагах или -1, если цель недостижима
+     */
+    private static void recordQuery(PathQueryEvent event, String engine, int startX, int startY,
+                                    int targetX, int targetY, int expanded, int queuePeak, int length) {
+        if (SimulationMetrics.isEnabled()) {
+            SimulationMetrics.global().recordPathQuery(expanded, queuePeak, length);
         }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Node node = (Node) o;
-            return x == node.x && y == node.y;
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.startX = startX;
+            event.startY = startY;
+            event.targetX = targetX;
+            event.targetY = targetY;
+            event.nodesExpanded = expanded;
+            event.queuePeak = queuePeak;
+            event.pathLength = length;
+            event.commit();
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return 31 * x + y;
-        }
+    /**
+     * Запрос относится к битве потока, если атакующий — один из ее юнитов (проверка по ссылке).
+     *
+     * @return живая карта битвы, идущей в потоке, если запрос относится к ней, иначе null
+     */
+    private static OccupancyGrid battleGrid(Unit attackUnit) {
+        BattleState state = BattleState.current();
+        return state != null && state.indexOf(attackUnit) >= 0 ? OccupancyGrid.current() : null;
+    }
 
-        @Override
-        public String toString() {
-            return "Node{" +
-                    "x=" + x +
-                    ", y=" + y +
-                    '}';
+    /**
+     * Заполняет маску занятости движка клетками живых юнитов, кроме атакующего и цели.
+     *
+     * @param engine           движок поиска пути текущего потока
+     * @param existingUnitList все юниты на поле
+     * @param attackUnit       атакующий юнит
+     * @param targetUnit       цель атаки или null, если клетки всех целей должны остаться занятыми
+     */
+    private void markOccupiedCells(GridPathEngine engine, List<Unit> existingUnitList, Unit attackUnit, Unit targetUnit) {
+        engine.clearOccupancy();
+        for (Unit unit : existingUnitList) {
+            if (unit.isAlive() && unit != attackUnit && unit != targetUnit) {
+                engine.block(unit.getxCoordinate(), unit.getyCoordinate());
+            }
         }
-
     }
 }
@@ -0,0 +1,108 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Глубокое копирование армий для безголовых (без интерфейса) симуляций.
+ * Копии не разделяют изменяемое состояние с исходными юнитами, поэтому исходный пресет
+ * можно использовать для любого количества независимых битв.
+ * <p>
+ * Карты бонусов атаки и защиты во время битвы не меняются, поэтому копии разделяют одну неизменяемую карту
+ * вместо собственной {@code HashMap} на каждого юнита.
+ */
+public final class ArmyCopier {
+    private ArmyCopier() {
+    }
+
+    /**
+     * Создает глубокую копию армии. Программы юнитов не копируются: их назначает вызывающая сторона,
+     * так как программа привязана к конкретным экземплярам союзной и вражеской армий.
+     *
+     * @param source исходная армия
+     * @return независимая копия армии
+     */
+    public static Army copy(Army source) {
+        return copy(source, null);
+    }
+
+    /**
+     * Создает глубокую копию армии, зеркально отражая координату x каждого юнита.
+     * Позволяет выставить пресет, сгенерированный {@code GeneratePresetImpl} для компьютера, на сторону игрока:
+     * на стандартном поле зона x = 0..2 переходит в x = 24..26.
+     *
+     * @param source исходная армия
+     * @return независимая отраженная копия армии
+     */
+    public static Army copyMirrored(Army source) {
+        return copy(source, Battlefield.STANDARD);
+    }
+
+    /**
+     * Создает глубокую копию армии, зеркально отражая координату x каждого юнита относительно середины поля.
+     *
+     * @param source      исходная армия
+     * @param battlefield поле, на котором стоит армия
+     * @return независимая отраженная копия армии
+     */
+    public static Army copyMirrored(Army source, Battlefield battlefield) {
+        return copy(source, battlefield);
+    }
+
+    /**
+     * Копирует юнита с новым именем и координатами. Карты бонусов копии — общие неизменяемые
+     * (см. {@link #shareBonuses(Map)}).
+     *
+     * @param unit исходный юнит
+     * @param name имя копии
+     * @param x    координата x копии
+     * @param y    координата y копии
+     * @return копия юнита
+     */
+    public static Unit copyUnit(Unit unit, String name, int x, int y) {
+        return new Unit(
+                name,
+                unit.getUnitType(),
+                unit.getHealth(),
+                unit.getBaseAttack(),
+                unit.getCost(),
+                unit.getAttackType(),
+                shareBonuses(unit.getAttackBonuses()),
+                shareBonuses(unit.getDefenceBonuses()),
+                x,
+                y
+        );
+    }
+
+    /**
+     * Возвращает неизменяемую карту бонусов, которую могут разделять копии юнита.
+     * Карта, уже ставшая неизменяемой при прошлом копировании, возвращается как есть, без копирования.
+     *
+     * @param bonuses карта бонусов юнита или null
+     * @return неизменяемая карта с теми же бонусами
+     */
+    public static Map<String, Double> shareBonuses(Map<String, Double> bonuses) {
+        return bonuses == null ? Map.of() : Map.copyOf(bonuses);
+    }
+
+    /**
+     * @param mirror поле, относительно середины которого отражается армия, или null, если отражать не нужно
+     */
+    private static Army copy(Army source, Battlefield mirror) {
+        List<Unit> units = new ArrayList<>(source.getUnits().size());
+        for (Unit unit : source.getUnits()) {
+            Unit copy = copyUnit(unit, unit.getName(),
+                    mirror != null ? mirror.mirrorX(unit.getxCoordinate()) : unit.getxCoordinate(),
+                    unit.getyCoordinate());
+            copy.setAlive(unit.isAlive());
+            units.add(copy);
+        }
+        Army army = new Army(units);
+        army.setPoints(source.getPoints());
+        return army;
+    }
+}
@@ -0,0 +1,304 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.util.GameSpeedUtil;
+import com.heroes_task.programs.SimulateBattleImpl;
+import com.heroes_task.programs.SuitableForAttackUnitsFinderImpl;
+import com.heroes_task.programs.UnitTargetPathFinderImpl;
+import com.heroes_task.programs.clock.VirtualClock;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import com.heroes_task.programs.log.LogLevel;
+import com.heroes_task.programs.metrics.SimulationMetrics;
+import com.heroes_task.programs.replay.BattleRecorder;
+import com.heroes_task.programs.search.LookaheadSearch;
+import com.heroes_task.programs.search.LookaheadUnitProgram;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Безголовый пакетный прогон битв: оценка противостояния двух пресетов методом Монте-Карло.
+ * <p>
+ * Каждая битва идет на собственных глубоких копиях армий со своим {@link Random}, зерно которого выводится
+ * из общего зерна и номера битвы. Поэтому результат серии не зависит от числа потоков и порядка выполнения,
+ * а исходные пресеты не изменяются. Битвы распределяются по ядрам через {@link ForkJoinPool}.
+ * <p>
+ * Юниты компьютера могут выбирать цели перебором ходов ({@link LookaheadSearch}) вместо правил библиотеки.
+ * Если включены {@link SimulationMetrics}, по окончании серии их сводка выводится в общий журнал.
+ */
+public class BattleBatchRunner {
+    /**
+     * Лимит раундов по умолчанию. В обычной битве армии из нескольких десятков юнитов укладываются
+     * в единицы раундов, поэтому лимит срабатывает только для армий, которые не могут атаковать друг друга.
+     */
+    public static final int DEFAULT_MAX_ROUNDS = 1_000;
+
+    private final int parallelism;
+    private final int maxRounds;
+    private final TargetSelection playerSelection;
+    private final TargetSelection computerSelection;
+    private final int gameSpeed;
+    private final Battlefield battlefield;
+    /**
+     * Перебор ходов юнитов компьютера или null, если компьютер играет по правилам библиотеки.
+     */
+    private final LookaheadSearch computerSearch;
+
+    /**
+     * Прогон на всех ядрах с лимитом раундов по умолчанию и правилами библиотеки для обеих сторон.
+     */
+    public BattleBatchRunner() {
+        this(builder());
+    }
+
+    private BattleBatchRunner(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.maxRounds = builder.maxRounds;
+        this.playerSelection = builder.playerSelection;
+        this.computerSelection = builder.computerSelection;
+        this.gameSpeed = builder.gameSpeed;
+        this.battlefield = builder.battlefield;
+        this.computerSearch = builder.computerSearch;
+    }
+
+    /**
+     * @return построитель прогона; без настроек строит то же, что {@link #BattleBatchRunner()}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return количество потоков, на которых выполняются битвы
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Battlefield getBattlefield() {
+        return battlefield;
+    }
+
+    /**
+     * @return перебор ходов юнитов компьютера или null
+     */
+    public LookaheadSearch getComputerSearch() {
+        return computerSearch;
+    }
+
+    /**
+     * Проводит серию независимых битв между копиями пресетов.
+     * Армия игрока должна стоять в зоне игрока (на стандартном поле x = 24..26); для пресета из
+     * {@code GeneratePresetImpl} используйте {@link ArmyCopier#copyMirrored(Army, Battlefield)}.
+     *
+     * @param playerPreset   пресет армии игрока
+     * @param computerPreset пресет армии компьютера
+     * @param battles        количество битв
+     * @param seed           общее зерно серии
+     * @return агрегированная статистика серии
+     * @throws InterruptedException если ожидающий поток прерван
+     */
+    public BattleStatistics run(Army playerPreset, Army computerPreset, int battles, long seed) throws InterruptedException {
+        if (battles < 0) {
+            throw new IllegalArgumentException("battles must not be negative: " + battles);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        BattleStatistics statistics;
+        try {
+            statistics = pool.submit(() -> IntStream.range(0, battles)
+                    .parallel()
+                    .mapToObj(index -> runSingle(playerPreset, computerPreset, battleSeed(seed, index)))
+                    .collect(BattleStatistics::new, BattleStatistics::add, BattleStatistics::merge)
+            ).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Battle batch failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        dumpMetrics();
+        return statistics;
+    }
+
+    /**
+     * Проводит ту же серию битв, что и {@link #run}, но в текущем потоке. Результат совпадает с {@link #run}
+     * при тех же аргументах. Подходит вызывающим, которые сами распределяют по ядрам много небольших серий.
+     * Сводку метрик метод не выводит — см. {@link #dumpMetrics()}.
+     *
+     * @param playerPreset   пресет армии игрока
+     * @param computerPreset пресет армии компьютера
+     * @param battles        количество битв
+     * @param seed           общее зерно серии
+     * @return агрегированная статистика серии
+     */
+    public BattleStatistics runSequential(Army playerPreset, Army computerPreset, int battles, long seed) {
+        if (battles < 0) {
+            throw new IllegalArgumentException("battles must not be negative: " + battles);
+        }
+        BattleStatistics statistics = new BattleStatistics();
+        for (int index = 0; index < battles; index++) {
+            statistics.add(runSingle(playerPreset, computerPreset, battleSeed(seed, index)));
+        }
+        return statistics;
+    }
+
+    /**
+     * Проводит одну безголовую битву на копиях пресетов.
+     *
+     * @param playerPreset   пресет армии игрока
+     * @param computerPreset пресет армии компьютера
+     * @param seed           зерно битвы
+     * @return итог битвы
+     */
+    public BattleResult runSingle(Army playerPreset, Army computerPreset, long seed) {
+        return runSingle(playerPreset, computerPreset, seed, null);
+    }
+
+    /**
+     * Проводит одну безголовую битву на копиях пресетов и записывает ее.
+     *
+     * @param playerPreset   пресет армии игрока
+     * @param computerPreset пресет армии компьютера
+     * @param seed           зерно битвы
+     * @param recorder       запись битвы или null
+     * @return итог битвы
+     */
+    public BattleResult runSingle(Army playerPreset, Army computerPreset, long seed, BattleRecorder recorder) {
+        Army playerArmy = ArmyCopier.copy(playerPreset);
+        Army computerArmy = ArmyCopier.copy(computerPreset);
+        VirtualClock clock = new VirtualClock();
+        SuitableForAttackUnitsFinderImpl finder = new SuitableForAttackUnitsFinderImpl();
+        UnitTargetPathFinderImpl pathFinder = new UnitTargetPathFinderImpl(battlefield);
+        Random random = new Random(seed);
+        GameSpeedUtil simSpeed = new GameSpeedUtil(gameSpeed);
+        HeadlessUnitProgram.Options options = new HeadlessUnitProgram.Options(finder, pathFinder, random)
+                .targetSelection(playerSelection, computerSelection)
+                .pace(simSpeed, clock)
+                .battlefield(battlefield);
+        HeadlessUnitProgram.assign(playerArmy, computerArmy, options);
+        if (computerSearch != null) {
+            LookaheadUnitProgram.assign(computerArmy, playerArmy, false, options, computerSearch);
+        }
+        SimulateBattleImpl simulation = SimulateBattleImpl.builder()
+                .maxRounds(maxRounds)
+                .log(AsyncBattleLog.off())
+                .recorder(recorder)
+                .battlefield(battlefield)
+                .build();
+        try {
+            return simulation.play(playerArmy, computerArmy)
+                    .withGameTime(clock.getElapsedMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Battle interrupted", e);
+        }
+    }
+
+    /**
+     * Выводит сводку метрик симуляции в общий журнал, если метрики включены.
+     * Метрики накапливаются за все серии с последнего {@link SimulationMetrics#reset()}.
+     * <p>
+     * {@link #run} выводит сводку сам; {@link #runSequential} — нет, поэтому вызывающий, который проводит через него
+     * много серий, выводит сводку один раз по их окончании.
+     */
+    public static void dumpMetrics() {
+        AsyncBattleLog log = AsyncBattleLog.defaultLog();
+        if (SimulationMetrics.isEnabled() && log.isEnabled(LogLevel.SUMMARY)) {
+            log.message(LogLevel.SUMMARY, "Метрики симуляции:" + System.lineSeparator()
+                    + SimulationMetrics.global().summary());
+        }
+    }
+
+    /**
+     * Выводит зерно отдельной битвы из зерна серии (перемешивание SplitMix64),
+     * чтобы соседние битвы получали некоррелированные последовательности.
+     */
+    private static long battleSeed(long seed, int index) {
+        long z = seed + (index + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Параметры прогона. По умолчанию: все ядра, {@link #DEFAULT_MAX_ROUNDS}, случайный выбор целей обеими сторонами,
+     * нулевой темп игры, стандартное поле и правила библиотеки для компьютера.
+     */
+    public static final class Builder {
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int maxRounds = DEFAULT_MAX_ROUNDS;
+        private TargetSelection playerSelection = TargetSelection.RANDOM;
+        private TargetSelection computerSelection = TargetSelection.RANDOM;
+        private int gameSpeed;
+        private Battlefield battlefield = Battlefield.STANDARD;
+        private LookaheadSearch computerSearch;
+
+        private Builder() {
+        }
+
+        /**
+         * @param parallelism количество потоков, на которых выполняются битвы
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param maxRounds предельное количество раундов одной битвы, после которого она считается ничьей
+         */
+        public Builder maxRounds(int maxRounds) {
+            if (maxRounds < 1) {
+                throw new IllegalArgumentException("maxRounds must be positive: " + maxRounds);
+            }
+            this.maxRounds = maxRounds;
+            return this;
+        }
+
+        /**
+         * @param playerSelection   выбор цели юнитами ближнего боя игрока
+         * @param computerSelection выбор цели юнитами ближнего боя компьютера
+         */
+        public Builder targetSelection(TargetSelection playerSelection, TargetSelection computerSelection) {
+            this.playerSelection = playerSelection;
+            this.computerSelection = computerSelection;
+            return this;
+        }
+
+        /**
+         * @param gameSpeed темп игры, мс на шаг. Паузы идут по виртуальным часам и не замедляют прогон,
+         *                  а {@link BattleResult#getGameTimeMillis()} показывает длительность битвы на экране
+         */
+        public Builder gameSpeed(int gameSpeed) {
+            if (gameSpeed < 0) {
+                throw new IllegalArgumentException("gameSpeed must not be negative: " + gameSpeed);
+            }
+            this.gameSpeed = gameSpeed;
+            return this;
+        }
+
+        /**
+         * @param battlefield поле, на котором стоят армии
+         */
+        public Builder battlefield(Battlefield battlefield) {
+            this.battlefield = battlefield;
+            return this;
+        }
+
+        /**
+         * @param computerSearch перебор ходов юнитов компьютера или null для правил библиотеки
+         */
+        public Builder computerSearch(LookaheadSearch computerSearch) {
+            this.computerSearch = computerSearch;
+            return this;
+        }
+
+        public BattleBatchRunner build() {
+            return new BattleBatchRunner(this);
+        }
+    }
+}
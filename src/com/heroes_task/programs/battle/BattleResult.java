@@ -0,0 +1,79 @@
+package com.heroes_task.programs.battle;
+
+/**
+ * Итог одной битвы: победившая сторона, количество сыгранных раундов
+ * и суммарное оставшееся здоровье живых юнитов каждой армии.
+ */
+public class BattleResult {
+
+    /**
+     * Исход битвы с точки зрения игрока.
+     */
+    public enum Outcome {
+        PLAYER_WIN,
+        COMPUTER_WIN,
+        DRAW
+    }
+
+    private final Outcome outcome;
+    private final int rounds;
+    private final int playerHealth;
+    private final int computerHealth;
+    private final long gameTimeMillis;
+
+    public BattleResult(Outcome outcome, int rounds, int playerHealth, int computerHealth) {
+        this(outcome, rounds, playerHealth, computerHealth, 0L);
+    }
+
+    /**
+     * @param gameTimeMillis сколько битва длилась бы на экране с заданным темпом игры
+     */
+    public BattleResult(Outcome outcome, int rounds, int playerHealth, int computerHealth, long gameTimeMillis) {
+        this.outcome = outcome;
+        this.rounds = rounds;
+        this.playerHealth = playerHealth;
+        this.computerHealth = computerHealth;
+        this.gameTimeMillis = gameTimeMillis;
+    }
+
+    /**
+     * @return итог с учтенным временем битвы по часам темпа игры
+     */
+    public BattleResult withGameTime(long millis) {
+        return new BattleResult(outcome, rounds, playerHealth, computerHealth, millis);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public int getPlayerHealth() {
+        return playerHealth;
+    }
+
+    public int getComputerHealth() {
+        return computerHealth;
+    }
+
+    /**
+     * @return время битвы по часам темпа игры или 0, если темп не учитывался
+     */
+    public long getGameTimeMillis() {
+        return gameTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BattleResult{" +
+                "outcome=" + outcome +
+                ", rounds=" + rounds +
+                ", playerHealth=" + playerHealth +
+                ", computerHealth=" + computerHealth +
+                ", gameTimeMillis=" + gameTimeMillis +
+                '}';
+    }
+}
@@ -0,0 +1,282 @@
+package com.heroes_task.programs.battle;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Снимок битвы для перебора ходов: модель битвы на плоских примитивных массивах без объектов {@code Unit}.
+ * <p>
+ * Изменяемая часть снимка — только здоровье и признак жизни юнитов, количество живых по сторонам и позиция в порядке
+ * ходов, поэтому {@link #fork()} копирует два небольших массива и работает за микросекунды. Все, что за битву
+ * не меняется (таблица урона, порядок ходов, координаты и ряды зон расстановки), лежит в общих
+ * неизменяемых {@link Rules}: юниты в этих правилах не перемещаются, поэтому координаты не копируются вовсе.
+ * <p>
+ * Ход в модели повторяет безголовую битву ({@code HeadlessUnitProgram} и {@code SimulateBattleImpl}): лучник бьет
+ * любого живого врага, юнит ближнего боя — юнита передней линии в зоне расстановки противника; программа
+ * наносит удар, и, если цель выжила, битва бьет ее еще раз. Оба удара — урон из {@link DamageTable}.
+ * Экземпляр не потокобезопасен: каждому потоку перебора нужен свой форк.
+ */
+public final class BattleSnapshot {
+    private final Rules rules;
+    private final int[] health;
+    private final boolean[] alive;
+    private int playerAlive;
+    private int computerAlive;
+    private int cursor;
+    private int round;
+
+    BattleSnapshot(Rules rules, int[] health, boolean[] alive, int playerAlive, int computerAlive, int cursor) {
+        this.rules = rules;
+        this.health = health;
+        this.alive = alive;
+        this.playerAlive = playerAlive;
+        this.computerAlive = computerAlive;
+        this.cursor = cursor;
+    }
+
+    private BattleSnapshot(BattleSnapshot source) {
+        this.rules = source.rules;
+        this.health = source.health.clone();
+        this.alive = source.alive.clone();
+        this.playerAlive = source.playerAlive;
+        this.computerAlive = source.computerAlive;
+        this.cursor = source.cursor;
+        this.round = source.round;
+    }
+
+    /**
+     * @return независимая копия снимка; правила битвы общие
+     */
+    public BattleSnapshot fork() {
+        return new BattleSnapshot(this);
+    }
+
+    public int size() {
+        return health.length;
+    }
+
+    public boolean isPlayer(int index) {
+        return index < rules.playerCount;
+    }
+
+    public boolean isAlive(int index) {
+        return alive[index];
+    }
+
+    public int getHealth(int index) {
+        return health[index];
+    }
+
+    public int getPlayerAlive() {
+        return playerAlive;
+    }
+
+    public int getComputerAlive() {
+        return computerAlive;
+    }
+
+    /**
+     * @return количество раундов, сыгранных в снимке с момента его создания
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return true, если одна из сторон полностью погибла
+     */
+    public boolean isOver() {
+        return playerAlive == 0 || computerAlive == 0;
+    }
+
+    /**
+     * @param player true — армия игрока, false — армия компьютера
+     * @return суммарное здоровье живых юнитов стороны
+     */
+    public int getHealth(boolean player) {
+        int from = player ? 0 : rules.playerCount;
+        int to = player ? rules.playerCount : health.length;
+        int total = 0;
+        for (int i = from; i < to; i++) {
+            if (alive[i]) {
+                total += health[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Находит юнита, который ходит следующим, пропуская погибших; при необходимости начинает новый раунд.
+     *
+     * @return индекс юнита или -1, если битва окончена
+     */
+    public int nextAttacker() {
+        int[] order = rules.turnOrder;
+        while (!isOver()) {
+            while (cursor < order.length) {
+                if (alive[order[cursor]]) {
+                    return order[cursor];
+                }
+                cursor++;
+            }
+            cursor = 0;
+            round++;
+        }
+        return -1;
+    }
+
+    /**
+     * Собирает цели, доступные юниту по правилам безголовой битвы.
+     *
+     * @param attacker индекс атакующего
+     * @param out      буфер целей длиной не меньше {@link #size()}
+     * @return количество целей в буфере
+     */
+    public int collectTargets(int attacker, int[] out) {
+        boolean player = isPlayer(attacker);
+        if (rules.ranged[attacker]) {
+            int from = player ? rules.playerCount : 0;
+            int to = player ? health.length : rules.playerCount;
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (alive[i]) {
+                    out[count++] = i;
+                }
+            }
+            return count;
+        }
+        // Передняя линия: по ряду зоны противника — живой юнит с минимальным y (цели игрока) или максимальным
+        int[][] rows = player ? rules.computerRows : rules.playerRows;
+        int count = 0;
+        for (int[] row : rows) {
+            if (player) {
+                for (int i = 0; i < row.length; i++) {
+                    if (alive[row[i]]) {
+                        out[count++] = row[i];
+                        break;
+                    }
+                }
+            } else {
+                for (int i = row.length - 1; i >= 0; i--) {
+                    if (alive[row[i]]) {
+                        out[count++] = row[i];
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Выполняет ход атакующего по цели и передает ход следующему юниту.
+     *
+     * @param attacker индекс атакующего, обычно результат {@link #nextAttacker()}
+     * @param target   индекс цели или -1, если атакующий пропускает ход
+     */
+    public void attack(int attacker, int target) {
+        if (target >= 0 && alive[target]) {
+            // Удар программы юнита, затем, если цель жива, удар битвы; оба с учетом бонусов
+            int damage = rules.damageTable.damage(attacker, target);
+            if (!hit(target, damage)) {
+                hit(target, damage);
+            }
+        }
+        cursor = rules.turnPosition[attacker] + 1;
+    }
+
+    private boolean hit(int target, int damage) {
+        health[target] -= damage;
+        if (health[target] <= 0) {
+            alive[target] = false;
+            if (isPlayer(target)) {
+                playerAlive--;
+            } else {
+                computerAlive--;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Доигрывает битву случайными ходами обеих сторон, как программы из библиотеки.
+     *
+     * @param random    источник случайности
+     * @param maxRounds сколько раундов доиграть не больше
+     * @param buffer    буфер целей длиной не меньше {@link #size()}
+     */
+    public void playout(SplittableRandom random, int maxRounds, int[] buffer) {
+        int lastRound = round + maxRounds;
+        while (true) {
+            int attacker = nextAttacker();
+            if (attacker < 0 || round >= lastRound) {
+                return;
+            }
+            int count = collectTargets(attacker, buffer);
+            attack(attacker, count == 0 ? -1 : buffer[random.nextInt(count)]);
+        }
+    }
+
+    /**
+     * Неизменяемые правила битвы, общие для всех снимков одной битвы.
+     */
+    static final class Rules {
+        private final int playerCount;
+        private final boolean[] ranged;
+        private final DamageTable damageTable;
+        private final int[] turnOrder;
+        private final int[] turnPosition;
+        private final int[][] playerRows;
+        private final int[][] computerRows;
+
+        Rules(BattleState state, boolean[] ranged, DamageTable damageTable) {
+            int size = state.size();
+            int playerCount = 0;
+            while (playerCount < size && state.isPlayer(playerCount)) {
+                playerCount++;
+            }
+            this.playerCount = playerCount;
+            this.ranged = ranged.clone();
+            this.damageTable = damageTable;
+            this.turnOrder = state.getTurnOrder().clone();
+            this.turnPosition = new int[size];
+            for (int position = 0; position < turnOrder.length; position++) {
+                turnPosition[turnOrder[position]] = position;
+            }
+            Battlefield battlefield = state.getBattlefield();
+            this.playerRows = zoneRows(state, true, battlefield.getPlayerFirstRow(), battlefield.getDeploymentDepth());
+            this.computerRows = zoneRows(state, false, battlefield.getComputerFirstRow(),
+                    battlefield.getDeploymentDepth());
+        }
+
+        /**
+         * @return позиция юнита в порядке ходов
+         */
+        int positionOf(int index) {
+            return turnPosition[index];
+        }
+
+        /**
+         * Раскладывает юнитов стороны, стоящих в зоне расстановки, по рядам в порядке возрастания y.
+         */
+        private static int[][] zoneRows(BattleState state, boolean player, int firstRow, int rows) {
+            int[][] zone = new int[rows][];
+            long[] keys = new long[state.size()];
+            for (int row = 0; row < rows; row++) {
+                int count = 0;
+                for (int i = 0; i < state.size(); i++) {
+                    if (state.isPlayer(i) == player && state.getX(i) == firstRow + row) {
+                        keys[count++] = ((long) state.getY(i) << 32) | i;
+                    }
+                }
+                Arrays.sort(keys, 0, count);
+                zone[row] = new int[count];
+                for (int k = 0; k < count; k++) {
+                    zone[row][k] = (int) keys[k];
+                }
+            }
+            return zone;
+        }
+    }
+}
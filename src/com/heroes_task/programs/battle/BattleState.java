@@ -0,0 +1,351 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.path.OccupancyGrid;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактное состояние битвы в виде параллельных примитивных массивов (struct-of-arrays).
+ * <p>
+ * Юниты обеих армий получают сквозные индексы: сначала армия игрока, затем армия компьютера.
+ * Здоровье, атака, признак жизни и координаты хранятся в массивах по этим индексам, порядок ходов
+ * (по убыванию базовой атаки) сортируется один раз при создании, а количество живых юнитов каждой стороны
+ * поддерживается инкрементально. Поэтому раунд битвы не создает ни очередей, ни стримов, ни промежуточных списков.
+ * <p>
+ * Объекты {@link Unit} остаются видимым представлением юнитов для интерфейса и программ из библиотеки:
+ * все изменения, сделанные через состояние, сразу записываются и в соответствующий {@link Unit},
+ * а изменения, сделанные программами, подтягиваются вызовом {@link #sync(int)}.
+ * <p>
+ * Вместе с массивами состояние ведет {@link OccupancyGrid} — карту занятости поля, которая обновляется
+ * при каждом перемещении и каждой гибели юнита и используется поиском пути вместо обхода всех юнитов,
+ * и {@link FrontLineIndex} — индекс передней линии для выбора целей ближнего боя.
+ * Урон с учетом бонусов атаки и защиты считается один раз на битву в {@link DamageTable}.
+ * <p>
+ * Для перебора ходов состояние снимается в {@link BattleSnapshot} ({@link #snapshot(int)}), а на время битвы
+ * привязывается к потоку ({@link #bind(BattleState)}), чтобы программы юнитов могли его прочитать.
+ */
+public class BattleState {
+    /**
+     * Состояние битвы, которая сейчас идет в потоке.
+     */
+    private static final ThreadLocal<BattleState> CURRENT = new ThreadLocal<>();
+
+    private final Unit[] units;
+    private final Map<Unit, Integer> indexByUnit;
+    private final int playerCount;
+    private final int[] health;
+    private final int[] attack;
+    private final int[] x;
+    private final int[] y;
+    private final boolean[] alive;
+    private final int[] turnOrder;
+    private final OccupancyGrid grid;
+    private final FrontLineIndex frontLine;
+    private final DamageTable damageTable;
+    private final Battlefield battlefield;
+    /**
+     * Правила снимков битвы; строятся при первом снимке и сбрасываются в {@link #sync(int)}, если юнит переместился.
+     */
+    private BattleSnapshot.Rules snapshotRules;
+    private int playerAlive;
+    private int computerAlive;
+
+    /**
+     * @param playerUnits   юниты армии игрока
+     * @param computerUnits юниты армии компьютера
+     */
+    public BattleState(List<Unit> playerUnits, List<Unit> computerUnits) {
+        this(playerUnits, computerUnits, Battlefield.STANDARD);
+    }
+
+    /**
+     * @param playerUnits   юниты армии игрока
+     * @param computerUnits юниты армии компьютера
+     * @param battlefield   поле битвы: размеры карты занятости и индекса передней линии, режим поиска пути
+     */
+    public BattleState(List<Unit> playerUnits, List<Unit> computerUnits, Battlefield battlefield) {
+        int size = playerUnits.size() + computerUnits.size();
+        this.units = new Unit[size];
+        this.indexByUnit = new IdentityHashMap<>(size);
+        this.playerCount = playerUnits.size();
+        this.health = new int[size];
+        this.attack = new int[size];
+        this.x = new int[size];
+        this.y = new int[size];
+        this.alive = new boolean[size];
+        this.battlefield = battlefield;
+        this.grid = battlefield.createGrid();
+        this.frontLine = new FrontLineIndex(battlefield.getWidth(), battlefield.getHeight());
+
+        int index = 0;
+        for (Unit unit : playerUnits) {
+            register(index++, unit);
+        }
+        for (Unit unit : computerUnits) {
+            register(index++, unit);
+        }
+        this.turnOrder = sortTurnOrder();
+        this.damageTable = new DamageTable(units);
+    }
+
+    private void register(int index, Unit unit) {
+        units[index] = unit;
+        indexByUnit.put(unit, index);
+        health[index] = unit.getHealth();
+        attack[index] = unit.getBaseAttack();
+        x[index] = unit.getxCoordinate();
+        y[index] = unit.getyCoordinate();
+        alive[index] = unit.isAlive();
+        if (alive[index]) {
+            grid.add(x[index], y[index]);
+            frontLine.add(side(index), unit, x[index], y[index]);
+            if (isPlayer(index)) {
+                playerAlive++;
+            } else {
+                computerAlive++;
+            }
+        }
+    }
+
+    /**
+     * Сортирует индексы юнитов по убыванию базовой атаки. Юниты с равной атакой ходят поочередно:
+     * первый такой юнит игрока, первый компьютера, второй игрока и т.д., чтобы ни одна сторона
+     * не получала систематического преимущества. Ключ сортировки упаковывается в long,
+     * чтобы обойтись без компаратора и упаковки.
+     */
+    private int[] sortTurnOrder() {
+        long[] keys = new long[units.length];
+        for (int i = 0; i < units.length; i++) {
+            long tieBreak = isPlayer(i) ? 2L * i : 2L * (i - playerCount) + 1;
+            keys[i] = ((long) (Integer.MAX_VALUE - attack[i]) << 32) | tieBreak;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[units.length];
+        for (int i = 0; i < keys.length; i++) {
+            // Младшие биты ключа однозначно восстанавливают индекс: четные — игрок, нечетные — компьютер
+            int tieBreak = (int) keys[i];
+            order[i] = (tieBreak & 1) == 0 ? tieBreak >> 1 : playerCount + (tieBreak >> 1);
+        }
+        return order;
+    }
+
+    /**
+     * Привязывает состояние к текущему потоку.
+     *
+     * @param state состояние битвы или null, чтобы снять привязку
+     * @return состояние, которое было привязано раньше
+     */
+    public static BattleState bind(BattleState state) {
+        BattleState previous = CURRENT.get();
+        if (state == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(state);
+        }
+        return previous;
+    }
+
+    /**
+     * @return состояние битвы, идущей в текущем потоке, или null
+     */
+    public static BattleState current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Снимает текущее состояние битвы для перебора ходов. Копируются только здоровье и признаки жизни.
+     *
+     * @param nextAttacker индекс юнита, который ходит следующим в текущем раунде
+     * @return снимок битвы
+     */
+    public BattleSnapshot snapshot(int nextAttacker) {
+        if (snapshotRules == null) {
+            boolean[] ranged = new boolean[units.length];
+            for (int i = 0; i < units.length; i++) {
+                ranged[i] = HeadlessUnitProgram.isRanged(units[i]);
+            }
+            snapshotRules = new BattleSnapshot.Rules(this, ranged, damageTable);
+        }
+        return new BattleSnapshot(snapshotRules, health.clone(), alive.clone(), playerAlive, computerAlive,
+                snapshotRules.positionOf(nextAttacker));
+    }
+
+    /**
+     * @return количество юнитов в битве
+     */
+    public int size() {
+        return units.length;
+    }
+
+    /**
+     * @return индексы юнитов в порядке хода; массив общий, изменять его нельзя
+     */
+    public int[] getTurnOrder() {
+        return turnOrder;
+    }
+
+    /**
+     * Возвращает сквозной индекс юнита или -1, если юнит не участвует в битве.
+     *
+     * @param unit юнит
+     * @return индекс юнита в массивах состояния
+     */
+    public int indexOf(Unit unit) {
+        Integer index = indexByUnit.get(unit);
+        return index == null ? -1 : index;
+    }
+
+    public Unit getUnit(int index) {
+        return units[index];
+    }
+
+    public boolean isPlayer(int index) {
+        return index < playerCount;
+    }
+
+    private int side(int index) {
+        return isPlayer(index) ? FrontLineIndex.PLAYER : FrontLineIndex.COMPUTER;
+    }
+
+    public boolean isAlive(int index) {
+        return alive[index];
+    }
+
+    public int getHealth(int index) {
+        return health[index];
+    }
+
+    public int getAttack(int index) {
+        return attack[index];
+    }
+
+    public int getX(int index) {
+        return x[index];
+    }
+
+    public int getY(int index) {
+        return y[index];
+    }
+
+    public Battlefield getBattlefield() {
+        return battlefield;
+    }
+
+    /**
+     * @return карта занятости поля этой битвы
+     */
+    public OccupancyGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return индекс передней линии этой битвы
+     */
+    public FrontLineIndex getFrontLine() {
+        return frontLine;
+    }
+
+    public int getPlayerAlive() {
+        return playerAlive;
+    }
+
+    public int getComputerAlive() {
+        return computerAlive;
+    }
+
+    /**
+     * @return true, пока в обеих армиях есть живые юниты
+     */
+    public boolean bothSidesAlive() {
+        return playerAlive > 0 && computerAlive > 0;
+    }
+
+    /**
+     * @param attacker индекс атакующего юнита
+     * @param target   индекс цели
+     * @return урон атакующего по цели с учетом бонусов атаки и защиты
+     */
+    public int getDamage(int attacker, int target) {
+        return damageTable.damage(attacker, target);
+    }
+
+    /**
+     * Наносит урон юниту, обновляя массивы состояния и сам {@link Unit}.
+     *
+     * @param index  индекс юнита, получающего урон
+     * @param damage величина урона
+     * @return true, если удар оказался смертельным
+     */
+    public boolean damage(int index, int damage) {
+        health[index] -= damage;
+        units[index].setHealth(health[index]);
+        if (health[index] <= 0 && alive[index]) {
+            units[index].setAlive(false);
+            markDead(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Подтягивает в состояние здоровье, признак жизни и координаты юнита после того,
+     * как его изменил код вне состояния (например, программа юнита из библиотеки).
+     *
+     * @param index индекс юнита
+     */
+    public void sync(int index) {
+        Unit unit = units[index];
+        health[index] = unit.getHealth();
+        if (x[index] != unit.getxCoordinate() || y[index] != unit.getyCoordinate()) {
+            snapshotRules = null;
+        }
+        if (alive[index]) {
+            grid.move(x[index], y[index], unit.getxCoordinate(), unit.getyCoordinate());
+            frontLine.move(side(index), unit, x[index], y[index], unit.getxCoordinate(), unit.getyCoordinate());
+        }
+        x[index] = unit.getxCoordinate();
+        y[index] = unit.getyCoordinate();
+        if (alive[index] && !unit.isAlive()) {
+            markDead(index);
+        }
+    }
+
+    private void markDead(int index) {
+        alive[index] = false;
+        grid.remove(x[index], y[index]);
+        frontLine.remove(side(index), x[index], y[index]);
+        if (isPlayer(index)) {
+            playerAlive--;
+        } else {
+            computerAlive--;
+        }
+    }
+
+    /**
+     * @return суммарное здоровье живых юнитов армии игрока
+     */
+    public int getPlayerHealth() {
+        return totalHealth(0, playerCount);
+    }
+
+    /**
+     * @return суммарное здоровье живых юнитов армии компьютера
+     */
+    public int getComputerHealth() {
+        return totalHealth(playerCount, units.length);
+    }
+
+    private int totalHealth(int from, int to) {
+        int total = 0;
+        for (int i = from; i < to; i++) {
+            if (alive[i]) {
+                total += Math.max(health[i], 0);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,92 @@
+package com.heroes_task.programs.battle;
+
+/**
+ * Агрегированная статистика серии битв одного противостояния: число побед, ничьих и поражений игрока,
+ * а также распределения числа раундов и оставшегося здоровья армий.
+ * Экземпляр не потокобезопасен и рассчитан на схему «накопить в потоке, затем объединить».
+ */
+public class BattleStatistics {
+    private long playerWins;
+    private long computerWins;
+    private long draws;
+    private final IntHistogram rounds = new IntHistogram();
+    private final IntHistogram playerHealth = new IntHistogram();
+    private final IntHistogram computerHealth = new IntHistogram();
+
+    /**
+     * Учитывает результат одной битвы.
+     *
+     * @param result итог битвы
+     */
+    public void add(BattleResult result) {
+        switch (result.getOutcome()) {
+            case PLAYER_WIN -> playerWins++;
+            case COMPUTER_WIN -> computerWins++;
+            case DRAW -> draws++;
+        }
+        rounds.record(result.getRounds());
+        playerHealth.record(result.getPlayerHealth());
+        computerHealth.record(result.getComputerHealth());
+    }
+
+    /**
+     * Объединяет текущую статистику со статистикой, накопленной в другом потоке.
+     *
+     * @param other статистика, которая добавляется к текущей
+     */
+    public void merge(BattleStatistics other) {
+        playerWins += other.playerWins;
+        computerWins += other.computerWins;
+        draws += other.draws;
+        rounds.merge(other.rounds);
+        playerHealth.merge(other.playerHealth);
+        computerHealth.merge(other.computerHealth);
+    }
+
+    public long getBattles() {
+        return playerWins + computerWins + draws;
+    }
+
+    public long getPlayerWins() {
+        return playerWins;
+    }
+
+    public long getComputerWins() {
+        return computerWins;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return доля побед игрока среди всех битв или 0, если битв не было
+     */
+    public double getPlayerWinRate() {
+        long battles = getBattles();
+        return battles == 0 ? 0.0 : (double) playerWins / battles;
+    }
+
+    public IntHistogram getRounds() {
+        return rounds;
+    }
+
+    public IntHistogram getPlayerHealth() {
+        return playerHealth;
+    }
+
+    public IntHistogram getComputerHealth() {
+        return computerHealth;
+    }
+
+    @Override
+    public String toString() {
+        return "Битв: " + getBattles() +
+                ", побед игрока: " + playerWins +
+                ", побед компьютера: " + computerWins +
+                ", ничьих: " + draws + System.lineSeparator() +
+                "Раунды: " + rounds + System.lineSeparator() +
+                "Здоровье игрока: " + playerHealth + System.lineSeparator() +
+                "Здоровье компьютера: " + computerHealth;
+    }
+}
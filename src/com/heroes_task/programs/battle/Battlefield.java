@@ -0,0 +1,150 @@
+package com.heroes_task.programs.battle;
+
+import com.heroes_task.programs.path.OccupancyGrid;
+
+/**
+ * Размеры поля боя и зон расстановки армий.
+ * <p>
+ * Поле состоит из рядов — значений координаты x, каждый ряд длиной {@code height} клеток по y.
+ * Армия компьютера стоит в первых {@code deploymentDepth} рядах (x = 0..depth-1), армия игрока — в последних
+ * (x = width-depth..width-1); юниты ближнего боя каждой стороны атакуют зону расстановки противника.
+ * <p>
+ * При положительном {@code clusterSize} поиск пути в битве идет по иерархической карте поля
+ * ({@link com.heroes_task.programs.path.HierarchicalPathEngine}): стоимость запроса почти не растет с размером поля,
+ * а путь может быть на несколько шагов длиннее кратчайшего. При нуле используется точный поиск в ширину.
+ * Экземпляры неизменяемы.
+ */
+public final class Battlefield {
+    /**
+     * Количество рядов зоны расстановки стандартного поля.
+     */
+    public static final int DEFAULT_DEPLOYMENT_DEPTH = 3;
+    /**
+     * Стандартное поле игры: 27x21, зоны расстановки по 3 ряда, точный поиск пути.
+     */
+    public static final Battlefield STANDARD = new Battlefield(OccupancyGrid.DEFAULT_WIDTH,
+            OccupancyGrid.DEFAULT_HEIGHT, DEFAULT_DEPLOYMENT_DEPTH);
+
+    private final int width;
+    private final int height;
+    private final int deploymentDepth;
+    private final int clusterSize;
+
+    /**
+     * @param width           количество рядов поля (значений координаты x)
+     * @param height          длина ряда (количество значений координаты y)
+     * @param deploymentDepth количество рядов зоны расстановки каждой стороны
+     */
+    public Battlefield(int width, int height, int deploymentDepth) {
+        this(width, height, deploymentDepth, 0);
+    }
+
+    /**
+     * @param width           количество рядов поля (значений координаты x)
+     * @param height          длина ряда (количество значений координаты y)
+     * @param deploymentDepth количество рядов зоны расстановки каждой стороны
+     * @param clusterSize     сторона кластера иерархического поиска пути или 0 для точного поиска
+     */
+    public Battlefield(int width, int height, int deploymentDepth, int clusterSize) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Battlefield size must be positive: " + width + "x" + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Battlefield is too large: " + width + "x" + height);
+        }
+        if (deploymentDepth < 1 || deploymentDepth * 2 > width) {
+            throw new IllegalArgumentException("deploymentDepth must be in [1, " + width / 2 + "]: " + deploymentDepth);
+        }
+        if (clusterSize != 0 && clusterSize < 2) {
+            throw new IllegalArgumentException("clusterSize must be 0 or at least 2: " + clusterSize);
+        }
+        this.width = width;
+        this.height = height;
+        this.deploymentDepth = deploymentDepth;
+        this.clusterSize = clusterSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getDeploymentDepth() {
+        return deploymentDepth;
+    }
+
+    /**
+     * @return сторона кластера иерархического поиска пути или 0, если поиск точный
+     */
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    public boolean isHierarchical() {
+        return clusterSize > 0;
+    }
+
+    /**
+     * @return первый ряд зоны расстановки компьютера
+     */
+    public int getComputerFirstRow() {
+        return 0;
+    }
+
+    /**
+     * @return первый ряд зоны расстановки игрока
+     */
+    public int getPlayerFirstRow() {
+        return width - deploymentDepth;
+    }
+
+    /**
+     * @return количество клеток зоны расстановки одной стороны
+     */
+    public int getZoneCells() {
+        return deploymentDepth * height;
+    }
+
+    /**
+     * Отражает координату x относительно середины поля: зона компьютера переходит в зону игрока и обратно.
+     */
+    public int mirrorX(int x) {
+        return width - 1 - x;
+    }
+
+    /**
+     * Создает карту занятости этого поля.
+     *
+     * @return карта занятости; для иерархического поиска — с иерархической картой
+     */
+    public OccupancyGrid createGrid() {
+        return new OccupancyGrid(width, height, clusterSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Battlefield)) {
+            return false;
+        }
+        Battlefield other = (Battlefield) o;
+        return width == other.width && height == other.height
+                && deploymentDepth == other.deploymentDepth && clusterSize == other.clusterSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((width * 31 + height) * 31 + deploymentDepth) * 31 + clusterSize;
+    }
+
+    @Override
+    public String toString() {
+        return "Battlefield[" + width + "x" + height + ", depth=" + deploymentDepth
+                + (clusterSize > 0 ? ", cluster=" + clusterSize : "") + "]";
+    }
+}
@@ -0,0 +1,125 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Unit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Таблица урона битвы с учетом бонусов атаки и защиты, посчитанная один раз при создании битвы.
+ * <p>
+ * Урон атакующего по цели: {@code round(baseAttack * attackBonus / defenceBonus)}, где
+ * {@code attackBonus} — значение {@code attackBonuses} атакующего по типу цели ({@code unitType}),
+ * а {@code defenceBonus} — значение {@code defenceBonuses} цели по типу атаки атакующего ({@code attackType}).
+ * Отсутствующий бонус равен 1, поэтому юниты без бонусов наносят ровно базовую атаку.
+ * <p>
+ * Юниты с одинаковыми типом, типом атаки, базовой атакой и бонусами получают общий небольшой номер профиля,
+ * а урон для каждой пары профилей хранится в {@code int[][]}: удар во время битвы — одно чтение массива
+ * без обращений к картам бонусов.
+ */
+public class DamageTable {
+    private final int[] profileByUnit;
+    private final int[][] damage;
+
+    /**
+     * @param units юниты битвы в порядке индексов состояния
+     */
+    public DamageTable(Unit[] units) {
+        this.profileByUnit = new int[units.length];
+        Map<Profile, Integer> ids = new HashMap<>();
+        List<Profile> profiles = new ArrayList<>();
+        for (int i = 0; i < units.length; i++) {
+            Profile profile = new Profile(units[i]);
+            Integer id = ids.get(profile);
+            if (id == null) {
+                id = profiles.size();
+                ids.put(profile, id);
+                profiles.add(profile);
+            }
+            profileByUnit[i] = id;
+        }
+
+        int count = profiles.size();
+        this.damage = new int[count][count];
+        for (int a = 0; a < count; a++) {
+            Profile attacker = profiles.get(a);
+            for (int d = 0; d < count; d++) {
+                Profile defender = profiles.get(d);
+                double multiplier = bonus(attacker.attackBonuses, defender.unitType)
+                        / bonus(defender.defenceBonuses, attacker.attackType);
+                damage[a][d] = (int) Math.round(attacker.baseAttack * multiplier);
+            }
+        }
+    }
+
+    /**
+     * @param attacker индекс атакующего юнита в состоянии
+     * @param target   индекс цели в состоянии
+     * @return урон атакующего по цели
+     */
+    public int damage(int attacker, int target) {
+        return damage[profileByUnit[attacker]][profileByUnit[target]];
+    }
+
+    /**
+     * @return количество различных профилей юнитов (размер таблицы)
+     */
+    public int getProfileCount() {
+        return damage.length;
+    }
+
+    private static double bonus(Map<String, Double> bonuses, String key) {
+        if (bonuses == null || key == null) {
+            return 1.0;
+        }
+        Double value = bonuses.get(key);
+        // Нулевой или отрицательный бонус защиты дал бы бесконечный урон — такие значения не учитываются
+        return value == null || value <= 0 ? 1.0 : value;
+    }
+
+    /**
+     * Все, от чего зависит урон юнита и урон по нему.
+     */
+    private static final class Profile {
+        private final String unitType;
+        private final String attackType;
+        private final int baseAttack;
+        private final Map<String, Double> attackBonuses;
+        private final Map<String, Double> defenceBonuses;
+        private final int hash;
+
+        private Profile(Unit unit) {
+            this.unitType = unit.getUnitType();
+            this.attackType = unit.getAttackType();
+            this.baseAttack = unit.getBaseAttack();
+            this.attackBonuses = unit.getAttackBonuses();
+            this.defenceBonuses = unit.getDefenceBonuses();
+            this.hash = Objects.hash(unitType, attackType, baseAttack, attackBonuses, defenceBonuses);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Profile)) {
+                return false;
+            }
+            Profile other = (Profile) o;
+            return hash == other.hash
+                    && baseAttack == other.baseAttack
+                    && Objects.equals(unitType, other.unitType)
+                    && Objects.equals(attackType, other.attackType)
+                    && Objects.equals(attackBonuses, other.attackBonuses)
+                    && Objects.equals(defenceBonuses, other.defenceBonuses);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
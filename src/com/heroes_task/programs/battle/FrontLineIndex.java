@@ -0,0 +1,201 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Unit;
+
+import java.util.List;
+
+/**
+ * Индекс передней линии: для каждой стороны и каждого ряда (значения координаты x) позволяет за O(1)
+ * найти живого юнита с минимальной и максимальной координатой y.
+ * <p>
+ * Для каждой пары «сторона, ряд» хранится битовая маска занятых клеток по y, поэтому минимум и максимум
+ * находятся через {@link Long#numberOfTrailingZeros(long)} и {@link Long#numberOfLeadingZeros(long)}.
+ * Индекс обновляется при гибели и перемещении юнитов, как и {@code OccupancyGrid}, и привязывается к потоку
+ * битвы, чтобы {@code SuitableForAttackUnitsFinderImpl} и безголовые программы могли им пользоваться.
+ * <p>
+ * Если в клетку встает второй юнит той же стороны, по клетке уже нельзя однозначно назвать юнита: такая клетка
+ * считается неоднозначной, пока не опустеет. {@link #unitAt} для нее возвращает null, а {@link #isConsistent(int)}
+ * — false, пока у стороны есть хотя бы одна неоднозначная клетка.
+ */
+public class FrontLineIndex {
+    /**
+     * Сторона игрока.
+     */
+    public static final int PLAYER = 0;
+    /**
+     * Сторона компьютера.
+     */
+    public static final int COMPUTER = 1;
+
+    /**
+     * Индекс битвы, которая сейчас идет в потоке.
+     */
+    private static final ThreadLocal<FrontLineIndex> CURRENT = new ThreadLocal<>();
+
+    private final int width;
+    private final int height;
+    private final int rowWords;
+    private final long[][] rowBits;
+    private final int[][] counts;
+    /**
+     * Юнит клетки; null для пустой и для неоднозначной клетки.
+     */
+    private final Unit[][] owners;
+    /**
+     * Количество неоднозначных клеток каждой стороны.
+     */
+    private final int[] ambiguousCells = new int[2];
+
+    /**
+     * @param width  количество рядов (значений координаты x)
+     * @param height длина ряда (количество значений координаты y)
+     */
+    public FrontLineIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.rowWords = (height + 63) >>> 6;
+        this.rowBits = new long[2][width * rowWords];
+        this.counts = new int[2][width * height];
+        this.owners = new Unit[2][width * height];
+    }
+
+    /**
+     * Привязывает индекс к текущему потоку.
+     *
+     * @param index индекс битвы или null, чтобы снять привязку
+     * @return индекс, который был привязан раньше
+     */
+    public static FrontLineIndex bind(FrontLineIndex index) {
+        FrontLineIndex previous = CURRENT.get();
+        if (index == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(index);
+        }
+        return previous;
+    }
+
+    /**
+     * @return индекс битвы, идущей в текущем потоке, или null
+     */
+    public static FrontLineIndex current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Регистрирует живого юнита в клетке. Координаты за пределами поля игнорируются.
+     */
+    public void add(int side, Unit unit, int x, int y) {
+        if (!inBounds(x, y)) {
+            return;
+        }
+        int cell = x * height + y;
+        if (counts[side][cell]++ == 0) {
+            owners[side][cell] = unit;
+            rowBits[side][x * rowWords + (y >>> 6)] |= 1L << y;
+        } else if (owners[side][cell] != null) {
+            // Второй юнит в клетке: какой из них в ней останется, по счетчику уже не узнать
+            owners[side][cell] = null;
+            ambiguousCells[side]++;
+        }
+    }
+
+    /**
+     * Убирает юнита из клетки (гибель или уход из клетки). Координаты за пределами поля игнорируются.
+     */
+    public void remove(int side, int x, int y) {
+        if (!inBounds(x, y)) {
+            return;
+        }
+        int cell = x * height + y;
+        if (counts[side][cell] == 0) {
+            return;
+        }
+        if (--counts[side][cell] == 0) {
+            if (owners[side][cell] == null) {
+                ambiguousCells[side]--;
+            }
+            owners[side][cell] = null;
+            rowBits[side][x * rowWords + (y >>> 6)] &= ~(1L << y);
+        }
+    }
+
+    /**
+     * Переносит юнита из одной клетки в другую.
+     */
+    public void move(int side, Unit unit, int fromX, int fromY, int toX, int toY) {
+        if (fromX != toX || fromY != toY) {
+            remove(side, fromX, fromY);
+            add(side, unit, toX, toY);
+        }
+    }
+
+    /**
+     * @param side сторона {@link #PLAYER} или {@link #COMPUTER}
+     * @return true, если каждая занятая клетка стороны сейчас однозначно указывает на своего юнита
+     */
+    public boolean isConsistent(int side) {
+        return ambiguousCells[side] == 0;
+    }
+
+    /**
+     * @return живой юнит стороны в клетке или null, если клетка пуста или неоднозначна
+     */
+    public Unit unitAt(int side, int x, int y) {
+        return inBounds(x, y) ? owners[side][x * height + y] : null;
+    }
+
+    /**
+     * Находит живого юнита стороны в ряду с минимальной или максимальной координатой y.
+     *
+     * @param side стороны {@link #PLAYER} или {@link #COMPUTER}
+     * @param row  ряд (значение координаты x)
+     * @param minY true — искать минимальную координату y, false — максимальную
+     * @return юнит передней линии ряда или null, если в ряду нет живых юнитов стороны
+     */
+    public Unit front(int side, int row, boolean minY) {
+        if (row < 0 || row >= width) {
+            return null;
+        }
+        long[] bits = rowBits[side];
+        int base = row * rowWords;
+        if (minY) {
+            for (int word = 0; word < rowWords; word++) {
+                long value = bits[base + word];
+                if (value != 0) {
+                    return owners[side][row * height + (word << 6) + Long.numberOfTrailingZeros(value)];
+                }
+            }
+        } else {
+            for (int word = rowWords - 1; word >= 0; word--) {
+                long value = bits[base + word];
+                if (value != 0) {
+                    return owners[side][row * height + (word << 6) + 63 - Long.numberOfLeadingZeros(value)];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Добавляет в список юнитов передней линии для нескольких подряд идущих рядов.
+     *
+     * @param side     сторона, юниты которой ищутся
+     * @param firstRow первый ряд
+     * @param rows     количество рядов
+     * @param minY     true — в каждом ряду брать минимальную координату y, false — максимальную
+     * @param out      список, в который добавляются найденные юниты
+     */
+    public void collectFront(int side, int firstRow, int rows, boolean minY, List<Unit> out) {
+        for (int row = firstRow; row < firstRow + rows; row++) {
+            Unit unit = front(side, row, minY);
+            if (unit != null) {
+                out.add(unit);
+            }
+        }
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+}
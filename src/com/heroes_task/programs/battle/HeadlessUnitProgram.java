@@ -0,0 +1,331 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.battle.heroes.army.programs.EdgeDistance;
+import com.battle.heroes.army.programs.Program;
+import com.battle.heroes.army.programs.SuitableForAttackUnitsFinder;
+import com.battle.heroes.army.programs.UnitTargetPathFinder;
+import com.battle.heroes.util.GameSpeedUtil;
+import com.heroes_task.programs.ReachableTargetsFinder;
+import com.heroes_task.programs.clock.BattleClock;
+import com.heroes_task.programs.replay.BattleRecorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Программа юнита для безголовых симуляций.
+ * <p>
+ * Повторяет правила программ из библиотеки ({@code Computer*Program} и {@code User*Program}):
+ * лучник бьет случайного живого врага, ближний бой выбирает случайную цель из передней линии противника
+ * и строит к ней путь. Отличия в том, что случайность берется из переданного {@link Random}
+ * (битвы воспроизводимы по зерну), паузы темпа игры выдерживаются через {@link BattleClock} вместо
+ * {@code Thread.sleep}: с виртуальными часами они ничего не стоят, а удар в битве учитывает бонусы атаки
+ * и защиты ({@link DamageTable}) вместо базовой атаки. Анимации перемещения нет —
+ * библиотечные программы после атаки все равно возвращают юнита в исходную клетку.
+ * <p>
+ * Вместо случайной цели ближнего боя можно выбирать ближайшую достижимую ({@link TargetSelection#NEAREST}),
+ * если поиск пути реализует {@link ReachableTargetsFinder}.
+ */
+public class HeadlessUnitProgram extends Program {
+    /**
+     * Тип юнита, атакующего издалека.
+     */
+    private static final String ARCHER_TYPE = "Archer";
+
+    private final SuitableForAttackUnitsFinder suitableForAttackUnitsFinder;
+    private final UnitTargetPathFinder unitTargetPathFinder;
+    private final Random random;
+    private final boolean playerSide;
+    private final boolean ranged;
+    private final TargetSelection targetSelection;
+    private final BattleClock clock;
+    /**
+     * Поле битвы: юнит ближнего боя просматривает ряды зоны расстановки противника.
+     */
+    private final Battlefield battlefield;
+    /**
+     * Все юниты обеих армий для поиска пути. Состав армий за битву не меняется, поэтому список собирается один раз.
+     */
+    private final List<Unit> existingUnitList;
+    /**
+     * Переиспользуемый список кандидатов, заполняемый из индекса передней линии.
+     */
+    private final List<Unit> frontLineCandidates;
+
+    /**
+     * @param unit       юнит, которым управляет программа
+     * @param allyArmy   армия юнита
+     * @param enemyArmy  армия противника
+     * @param playerSide true, если юнит принадлежит армии игрока
+     * @param options    общие параметры программ битвы
+     */
+    public HeadlessUnitProgram(Unit unit, Army allyArmy, Army enemyArmy, boolean playerSide, Options options) {
+        super(unit, allyArmy, enemyArmy, options.getSimSpeed());
+        this.clock = options.getClock();
+        this.battlefield = options.getBattlefield();
+        this.frontLineCandidates = new ArrayList<>(battlefield.getDeploymentDepth());
+        this.suitableForAttackUnitsFinder = options.getFinder();
+        this.unitTargetPathFinder = options.getPathFinder();
+        this.random = options.getRandom();
+        this.playerSide = playerSide;
+        this.targetSelection = options.getTargetSelection(playerSide);
+        this.ranged = isRanged(unit);
+        this.existingUnitList = new ArrayList<>(enemyArmy.getUnits());
+        this.existingUnitList.addAll(allyArmy.getUnits());
+    }
+
+    /**
+     * Назначает безголовые программы всем юнитам обеих армий.
+     *
+     * @param playerArmy   армия игрока
+     * @param computerArmy армия компьютера
+     * @param options      общие параметры программ битвы
+     */
+    public static void assign(Army playerArmy, Army computerArmy, Options options) {
+        for (Unit unit : playerArmy.getUnits()) {
+            unit.setProgram(new HeadlessUnitProgram(unit, playerArmy, computerArmy, true, options));
+        }
+        for (Unit unit : computerArmy.getUnits()) {
+            unit.setProgram(new HeadlessUnitProgram(unit, computerArmy, playerArmy, false, options));
+        }
+    }
+
+    /**
+     * @return true, если юнит атакует издалека любого живого врага, а не переднюю линию
+     */
+    static boolean isRanged(Unit unit) {
+        return ARCHER_TYPE.equalsIgnoreCase(unit.getUnitType());
+    }
+
+    @Override
+    public Unit attack() throws InterruptedException {
+        return ranged ? rangedAttack() : meleeAttack();
+    }
+
+    private Unit rangedAttack() throws InterruptedException {
+        List<Unit> aliveEnemies = new ArrayList<>();
+        for (Unit enemy : enemyArmy.getUnits()) {
+            if (enemy.isAlive()) {
+                aliveEnemies.add(enemy);
+            }
+        }
+        if (aliveEnemies.isEmpty()) {
+            return null;
+        }
+        Unit target = chooseTarget(aliveEnemies);
+        hit(target);
+        // Как у лучников библиотеки: одна пауза после выстрела
+        pace(1);
+        return target;
+    }
+
+    private Unit meleeAttack() throws InterruptedException {
+        List<Unit> suitableUnits = findSuitableUnits();
+        if (suitableUnits.isEmpty()) {
+            return null;
+        }
+        if (targetSelection == TargetSelection.NEAREST
+                && unitTargetPathFinder instanceof ReachableTargetsFinder reachableTargetsFinder) {
+            Unit nearest = nearestAttack(reachableTargetsFinder, suitableUnits);
+            if (nearest != null) {
+                return nearest;
+            }
+        }
+        Unit target = chooseTarget(suitableUnits);
+
+        List<Edge> path = unitTargetPathFinder.getTargetPath(unit, target, existingUnitList);
+        if (path.isEmpty()) {
+            // Так поступают библиотечные программы: игрок «бьет» сам себя, компьютер пропускает ход
+            return playerSide ? unit : null;
+        }
+
+        hit(target);
+        // Как у библиотечных программ: пауза на каждый шаг пути и на удар
+        pace(path.size() + 1);
+        return target;
+    }
+
+    /**
+     * Выбирает цель из доступных юниту. Правило библиотеки — случайная цель; наследники могут выбирать иначе.
+     *
+     * @param candidates живые цели, непустой список
+     * @return выбранная цель
+     */
+    protected Unit chooseTarget(List<Unit> candidates) {
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    /**
+     * Собирает юнитов передней линии противника. Игрок бьет по зоне расстановки компьютера (цели с минимальным y),
+     * компьютер — по зоне игрока (цели с максимальным y); на стандартном поле это ряды 0..2 и 24..26.
+     * Во время битвы кандидаты берутся из индекса передней линии без обхода армии противника.
+     */
+    private List<Unit> findSuitableUnits() {
+        int firstRow = playerSide ? battlefield.getComputerFirstRow() : battlefield.getPlayerFirstRow();
+        int rows = battlefield.getDeploymentDepth();
+        int ownSide = playerSide ? FrontLineIndex.PLAYER : FrontLineIndex.COMPUTER;
+        FrontLineIndex frontLine = FrontLineIndex.current();
+        if (frontLine != null && frontLine.isConsistent(1 - ownSide)
+                && frontLine.unitAt(ownSide, unit.getxCoordinate(), unit.getyCoordinate()) == unit) {
+            frontLineCandidates.clear();
+            frontLine.collectFront(1 - ownSide, firstRow, rows, playerSide, frontLineCandidates);
+            return frontLineCandidates;
+        }
+
+        List<List<Unit>> unitsByRow = new ArrayList<>(rows);
+        for (int row = firstRow; row < firstRow + rows; row++) {
+            unitsByRow.add(getUnitsByRow(row));
+        }
+        return suitableForAttackUnitsFinder.getSuitableUnits(unitsByRow, playerSide);
+    }
+
+    /**
+     * Бьет ближайшую достижимую цель из передней линии: все кандидаты оцениваются одним полем расстояний.
+     * Если юнит заперт и не может дойти ни до одной цели, возвращает null, и ход идет по правилу библиотеки
+     * (ее поиск пути «доводит» юнита до цели даже без свободного прохода).
+     */
+    private Unit nearestAttack(ReachableTargetsFinder reachableTargetsFinder, List<Unit> suitableUnits)
+            throws InterruptedException {
+        List<EdgeDistance> reachable = reachableTargetsFinder.getReachableTargets(unit, suitableUnits, existingUnitList);
+        if (reachable.isEmpty()) {
+            return null;
+        }
+        EdgeDistance nearest = reachable.get(0);
+        for (Unit candidate : suitableUnits) {
+            if (candidate.isAlive() && candidate.getxCoordinate() == nearest.getX()
+                    && candidate.getyCoordinate() == nearest.getY()) {
+                // Путь нужен только записи битвы: поле расстояний уже построено, восстановление пути дешевое
+                BattleRecorder recorder = BattleRecorder.current();
+                if (recorder != null) {
+                    recorder.path(unit, reachableTargetsFinder.getPathToReachableTarget(nearest.getX(), nearest.getY()));
+                }
+                hit(candidate);
+                // Путь включает обе конечные клетки: шагов на один больше длины пути
+                pace(nearest.getDistance() + 2);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Выдерживает паузы темпа игры. Темп читается при каждом ходе: его можно менять во время битвы.
+     *
+     * @param pauses количество пауз
+     */
+    private void pace(int pauses) throws InterruptedException {
+        long speed = simSpeed.getGameSpeed();
+        if (speed > 0) {
+            clock.pause(speed * pauses);
+        }
+    }
+
+    /**
+     * Наносит удар программы. В битве, привязанной к потоку, урон берется из таблицы урона битвы с учетом бонусов
+     * атаки и защиты; вне битвы и по юнитам, которых нет в ее состоянии, — базовая атака, как у программ библиотеки.
+     */
+    private void hit(Unit target) {
+        BattleState state = BattleState.current();
+        int attackerIndex = state == null ? -1 : state.indexOf(unit);
+        int targetIndex = attackerIndex < 0 ? -1 : state.indexOf(target);
+        int damage = targetIndex >= 0 ? state.getDamage(attackerIndex, targetIndex) : unit.getBaseAttack();
+        target.setHealth(target.getHealth() - damage);
+        if (target.getHealth() <= 0) {
+            target.setAlive(false);
+        }
+    }
+
+    /**
+     * Общие параметры программ всех юнитов одной битвы. Обязательны поиск целей, поиск пути и источник случайности;
+     * остальное по умолчанию — случайный выбор целей обеими сторонами, нулевой темп игры по реальным часам
+     * и стандартное поле. Программы копируют параметры при создании, поэтому один объект можно переиспользовать.
+     */
+    public static final class Options {
+        private final SuitableForAttackUnitsFinder finder;
+        private final UnitTargetPathFinder pathFinder;
+        private final Random random;
+        private TargetSelection playerSelection = TargetSelection.RANDOM;
+        private TargetSelection computerSelection = TargetSelection.RANDOM;
+        private GameSpeedUtil simSpeed = new GameSpeedUtil(0);
+        private BattleClock clock = BattleClock.realTime();
+        private Battlefield battlefield = Battlefield.STANDARD;
+
+        /**
+         * @param finder     поиск целей в передней линии
+         * @param pathFinder поиск пути до цели
+         * @param random     источник случайности битвы, общий для всех юнитов
+         */
+        public Options(SuitableForAttackUnitsFinder finder, UnitTargetPathFinder pathFinder, Random random) {
+            this.finder = finder;
+            this.pathFinder = pathFinder;
+            this.random = random;
+        }
+
+        /**
+         * @param playerSelection   выбор цели юнитами ближнего боя игрока
+         * @param computerSelection выбор цели юнитами ближнего боя компьютера
+         * @return эти же параметры
+         */
+        public Options targetSelection(TargetSelection playerSelection, TargetSelection computerSelection) {
+            this.playerSelection = playerSelection;
+            this.computerSelection = computerSelection;
+            return this;
+        }
+
+        /**
+         * @param simSpeed темп игры: пауза на каждый шаг и на удар, мс
+         * @param clock    часы, которыми выдерживается темп
+         * @return эти же параметры
+         */
+        public Options pace(GameSpeedUtil simSpeed, BattleClock clock) {
+            this.simSpeed = simSpeed;
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @param battlefield поле битвы
+         * @return эти же параметры
+         */
+        public Options battlefield(Battlefield battlefield) {
+            this.battlefield = battlefield;
+            return this;
+        }
+
+        public SuitableForAttackUnitsFinder getFinder() {
+            return finder;
+        }
+
+        public UnitTargetPathFinder getPathFinder() {
+            return pathFinder;
+        }
+
+        public Random getRandom() {
+            return random;
+        }
+
+        /**
+         * @param playerSide true для армии игрока
+         * @return выбор цели юнитами ближнего боя этой стороны
+         */
+        public TargetSelection getTargetSelection(boolean playerSide) {
+            return playerSide ? playerSelection : computerSelection;
+        }
+
+        public GameSpeedUtil getSimSpeed() {
+            return simSpeed;
+        }
+
+        public BattleClock getClock() {
+            return clock;
+        }
+
+        public Battlefield getBattlefield() {
+            return battlefield;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.heroes_task.programs.battle;
+
+import java.util.Arrays;
+
+/**
+ * Простая гистограмма неотрицательных целых значений с единичной шириной корзины.
+ * Используется для накопления распределений по множеству битв (число раундов, оставшееся здоровье).
+ * Экземпляр не потокобезопасен: каждый поток накапливает свою гистограмму, затем они объединяются через {@link #merge}.
+ */
+public class IntHistogram {
+    private long[] counts = new long[16];
+    private long totalCount;
+    private long sum;
+    private int max;
+
+    /**
+     * Добавляет значение в гистограмму. Отрицательные значения учитываются как 0.
+     *
+     * @param value регистрируемое значение
+     */
+    public void record(int value) {
+        int bucket = Math.max(value, 0);
+        if (bucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket + 1, counts.length * 2));
+        }
+        counts[bucket]++;
+        totalCount++;
+        sum += bucket;
+        max = Math.max(max, bucket);
+    }
+
+    /**
+     * Добавляет к текущей гистограмме все значения другой гистограммы.
+     *
+     * @param other гистограмма, значения которой переносятся в текущую
+     */
+    public void merge(IntHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Возвращает количество зарегистрированных значений, равных заданному.
+     *
+     * @param value значение корзины
+     * @return число попаданий в корзину
+     */
+    public long getCount(int value) {
+        return value >= 0 && value < counts.length ? counts[value] : 0;
+    }
+
+    /**
+     * Возвращает наименьшее значение, не превосходящее заданную долю выборки.
+     *
+     * @param percentile перцентиль в диапазоне [0, 100]
+     * @return значение перцентиля или 0 для пустой гистограммы
+     */
+    public int getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(totalCount * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+        for (int i = 0; i <= max; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(threshold, 1)) {
+                return i;
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "mean=" + String.format("%.2f", getMean()) +
+                " p50=" + getPercentile(50) +
+                " p90=" + getPercentile(90) +
+                " p99=" + getPercentile(99) +
+                " max=" + max;
+    }
+}
@@ -0,0 +1,16 @@
+package com.heroes_task.programs.battle;
+
+/**
+ * Способ выбора цели юнитом ближнего боя в безголовой симуляции.
+ */
+public enum TargetSelection {
+    /**
+     * Случайная цель из передней линии противника — правило программ из библиотеки.
+     */
+    RANDOM,
+    /**
+     * Ближайшая по длине пути достижимая цель из передней линии противника.
+     * Все кандидаты оцениваются одним полем расстояний, недостижимые цели отбрасываются.
+     */
+    NEAREST
+}
@@ -0,0 +1,31 @@
+package com.heroes_task.programs.clock;
+
+/**
+ * Часы битвы: источник времени и паузы темпа игры ({@code GameSpeedUtil}).
+ * <p>
+ * Программы юнитов из библиотеки выдерживают темп через {@code Thread.sleep}. Безголовые программы делают то же
+ * через часы, поэтому темп можно либо выдерживать по-настоящему ({@link #realTime()}, для показа битвы),
+ * либо только учитывать ({@link VirtualClock}: пауза мгновенно сдвигает виртуальное время и ничего не ждет).
+ */
+public interface BattleClock {
+
+    /**
+     * @return часы реального времени, общие для всех битв
+     */
+    static BattleClock realTime() {
+        return RealTimeClock.INSTANCE;
+    }
+
+    /**
+     * @return текущее время часов в миллисекундах; начало отсчета зависит от реализации
+     */
+    long currentTimeMillis();
+
+    /**
+     * Выдерживает паузу темпа игры.
+     *
+     * @param millis длительность паузы в миллисекундах
+     * @throws InterruptedException если поток прерван
+     */
+    void pause(long millis) throws InterruptedException;
+}
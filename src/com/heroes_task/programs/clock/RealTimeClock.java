@@ -0,0 +1,24 @@
+package com.heroes_task.programs.clock;
+
+/**
+ * Часы реального времени: пауза — настоящий сон потока, как в программах юнитов из библиотеки.
+ * Сон идет без захвата мониторов, поэтому на виртуальных потоках (Java 21+) он не занимает поток-носитель.
+ */
+final class RealTimeClock implements BattleClock {
+    static final RealTimeClock INSTANCE = new RealTimeClock();
+
+    private RealTimeClock() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+    @Override
+    public void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
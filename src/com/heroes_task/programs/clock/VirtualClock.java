@@ -0,0 +1,38 @@
+package com.heroes_task.programs.clock;
+
+/**
+ * Виртуальные часы одной битвы: дискретно-событийное время, которое идет только паузами.
+ * <p>
+ * Пауза не блокирует поток, а сдвигает время на свою длительность, поэтому битва с любым темпом игры
+ * проходит со скоростью безголовой симуляции, а {@link #getElapsedMillis()} показывает, сколько она длилась бы
+ * на экране. Часы привязаны к одной битве и не потокобезопасны.
+ */
+public class VirtualClock implements BattleClock {
+    private long now;
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Сдвигает виртуальное время. Прерывание потока проверяется, как при настоящем сне.
+     */
+    @Override
+    public void pause(long millis) throws InterruptedException {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Pause must not be negative: " + millis);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        now += millis;
+    }
+
+    /**
+     * @return виртуальное время, прошедшее с создания часов
+     */
+    public long getElapsedMillis() {
+        return now;
+    }
+}
@@ -0,0 +1,102 @@
+package com.heroes_task.programs.evolution;
+
+import com.battle.heroes.army.Army;
+
+import java.util.List;
+
+/**
+ * Итог эволюционного поиска: лучший найденный пресет, его оценка и ход поиска по поколениям.
+ */
+public class EvolutionResult {
+    private final PresetGenome best;
+    private final Army bestArmy;
+    private final double bestFitness;
+    private final double[] bestFitnessByGeneration;
+    private final int evaluatedMatchups;
+    private final long simulatedBattles;
+    private final long cacheHits;
+
+    public EvolutionResult(PresetGenome best, Army bestArmy, double bestFitness, double[] bestFitnessByGeneration,
+                           int evaluatedMatchups, long simulatedBattles, long cacheHits) {
+        this.best = best;
+        this.bestArmy = bestArmy;
+        this.bestFitness = bestFitness;
+        this.bestFitnessByGeneration = bestFitnessByGeneration.clone();
+        this.evaluatedMatchups = evaluatedMatchups;
+        this.simulatedBattles = simulatedBattles;
+        this.cacheHits = cacheHits;
+    }
+
+    public PresetGenome getBest() {
+        return best;
+    }
+
+    /**
+     * @return лучший пресет в зоне компьютера (x = 0..2)
+     */
+    public Army getBestArmy() {
+        return bestArmy;
+    }
+
+    /**
+     * @return средняя по пулу противников доля побед лучшего пресета (ничья считается за половину победы)
+     */
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    /**
+     * @return оценка лучшего пресета каждого поколения, начиная с начальной популяции
+     */
+    public double[] getBestFitnessByGeneration() {
+        return bestFitnessByGeneration.clone();
+    }
+
+    /**
+     * @return количество различных противостояний «пресет — противник», просчитанных за все время поиска
+     */
+    public int getEvaluatedMatchups() {
+        return evaluatedMatchups;
+    }
+
+    public long getSimulatedBattles() {
+        return simulatedBattles;
+    }
+
+    /**
+     * @return количество оценок противостояний, взятых из кэша вместо повторной симуляции
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    @Override
+    public String toString() {
+        return "Лучший пресет: " + best
+                + "\nОценка: " + String.format("%.3f", bestFitness)
+                + "\nПоколений: " + Math.max(bestFitnessByGeneration.length - 1, 0)
+                + ", противостояний: " + evaluatedMatchups
+                + ", битв: " + simulatedBattles
+                + ", попаданий в кэш: " + cacheHits
+                + "\nОценки по поколениям: " + formatHistory();
+    }
+
+    private String formatHistory() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < bestFitnessByGeneration.length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(String.format("%.3f", bestFitnessByGeneration[i]));
+        }
+        return builder.toString();
+    }
+
+    static double[] toArray(List<Double> values) {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,465 @@
+package com.heroes_task.programs.evolution;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.GeneratePresetImpl;
+import com.heroes_task.programs.battle.ArmyCopier;
+import com.heroes_task.programs.battle.BattleBatchRunner;
+import com.heroes_task.programs.battle.BattleStatistics;
+import com.heroes_task.programs.battle.Battlefield;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import com.heroes_task.programs.preset.PlacementStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Эволюционный поиск пресета компьютера: генетический алгоритм над составом армии и расстановкой юнитов
+ * в пределах бюджета очков.
+ * <p>
+ * Оценка кандидата — средняя доля побед в безголовых битвах против пула противников. Кандидат играет за игрока
+ * (зеркальная копия), противник — за компьютера. Битвы противостояния идут с зерном, которое зависит только
+ * от зерна поиска и номера противника, поэтому все кандидаты проверяются на одних и тех же случайных
+ * последовательностях, а результат противостояния можно кэшировать: одно и то же противостояние никогда
+ * не симулируется дважды. Новые противостояния поколения просчитываются параллельно на всех ядрах.
+ * <p>
+ * Популяция сохраняется между вызовами {@link #evolve(int, int)}: повторный вызов продолжает поиск с того же места.
+ * Экземпляр не потокобезопасен.
+ */
+public class PresetEvolution {
+    /**
+     * Количество участников турнира при выборе родителя.
+     */
+    private static final int TOURNAMENT_SIZE = 3;
+    /**
+     * Вероятность того, что потомок получается скрещиванием, а не копией одного родителя.
+     */
+    private static final double CROSSOVER_RATE = 0.7;
+    /**
+     * Сколько раз мутировать потомка, совпавшего с уже имеющимся в новой популяции геномом.
+     */
+    private static final int DUPLICATE_RETRIES = 8;
+
+    private final List<Unit> unitTypes;
+    private final int maxPoints;
+    private final List<Army> opponents;
+    private final BattleBatchRunner runner;
+    private final int battlesPerMatchup;
+    private final long seed;
+    private final Random random;
+    private final int[] costs;
+
+    /**
+     * Кэш противостояний: оценка кандидата против противника с заданным номером.
+     */
+    private final Map<Matchup, Double> matchups = new ConcurrentHashMap<>();
+    private final LongAdder simulatedBattles = new LongAdder();
+    private long cacheHits;
+
+    private List<PresetGenome> population = new ArrayList<>();
+    private final Map<PresetGenome, Double> fitness = new ConcurrentHashMap<>();
+    private final List<Double> history = new ArrayList<>();
+
+    /**
+     * @param unitTypes         шаблоны юнитов, по одному на тип
+     * @param maxPoints         бюджет очков пресета
+     * @param opponents         пул противников: пресеты в зоне компьютера (x = 0..2)
+     * @param runner            настройки безголовых битв (лимит раундов, выбор целей, количество потоков);
+     *                          поле битвы должно иметь размеры стандартного
+     * @param battlesPerMatchup количество битв в одном противостоянии
+     * @param seed              зерно поиска
+     */
+    public PresetEvolution(List<Unit> unitTypes, int maxPoints, List<Army> opponents,
+                           BattleBatchRunner runner, int battlesPerMatchup, long seed) {
+        if (unitTypes.isEmpty()) {
+            throw new IllegalArgumentException("unitTypes must not be empty");
+        }
+        if (opponents.isEmpty()) {
+            throw new IllegalArgumentException("opponents must not be empty");
+        }
+        if (battlesPerMatchup < 1) {
+            throw new IllegalArgumentException("battlesPerMatchup must be positive: " + battlesPerMatchup);
+        }
+        // Геномы кодируют клетки зоны стандартного поля; на другом поле кандидат встал бы вне зоны игрока
+        Battlefield battlefield = runner.getBattlefield();
+        if (battlefield.getWidth() != Battlefield.STANDARD.getWidth()
+                || battlefield.getHeight() != PresetGenome.HEIGHT
+                || battlefield.getDeploymentDepth() != PresetGenome.WIDTH) {
+            throw new IllegalArgumentException("Preset evolution needs the standard battlefield size: " + battlefield);
+        }
+        // Шаблоны с неизменяемыми картами бонусов: собранные по геномам армии разделяют их без копирования
+        List<Unit> templates = new ArrayList<>(unitTypes.size());
+        for (Unit unit : unitTypes) {
+            templates.add(ArmyCopier.copyUnit(unit, unit.getName(), unit.getxCoordinate(), unit.getyCoordinate()));
+        }
+        this.unitTypes = List.copyOf(templates);
+        this.maxPoints = maxPoints;
+        this.opponents = List.copyOf(opponents);
+        this.runner = runner;
+        this.battlesPerMatchup = battlesPerMatchup;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.costs = new int[this.unitTypes.size()];
+        for (int t = 0; t < costs.length; t++) {
+            costs[t] = this.unitTypes.get(t).getCost();
+        }
+    }
+
+    /**
+     * Добавляет пресет в начальную популяцию, например пресет, подобранный вручную.
+     * Действует только до первого вызова {@link #evolve(int, int)}.
+     *
+     * @param army пресет в зоне компьютера
+     */
+    public void addCandidate(Army army) {
+        PresetGenome genome = repair(PresetGenome.fromArmy(army, unitTypes).genes());
+        if (!population.contains(genome)) {
+            population.add(genome);
+        }
+    }
+
+    /**
+     * Проводит заданное количество поколений. При первом вызове начальная популяция составляется из кандидатов,
+     * добавленных через {@link #addCandidate(Army)}, пресетов {@link GeneratePresetImpl} со всеми правилами
+     * расстановки и случайных пресетов.
+     *
+     * @param populationSize размер популяции
+     * @param generations    количество поколений
+     * @return лучший найденный пресет и ход поиска
+     * @throws InterruptedException если ожидающий поток прерван
+     */
+    public EvolutionResult evolve(int populationSize, int generations) throws InterruptedException {
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("populationSize must be at least 2: " + populationSize);
+        }
+        if (generations < 0) {
+            throw new IllegalArgumentException("generations must not be negative: " + generations);
+        }
+        ForkJoinPool pool = new ForkJoinPool(runner.getParallelism());
+        try {
+            if (history.isEmpty()) {
+                seedPopulation(populationSize);
+                evaluate(population, pool);
+                history.add(fitness.get(population.get(0)));
+            }
+            for (int generation = 0; generation < generations; generation++) {
+                population = breed(populationSize);
+                evaluate(population, pool);
+                history.add(fitness.get(population.get(0)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        BattleBatchRunner.dumpMetrics();
+
+        PresetGenome best = population.get(0);
+        return new EvolutionResult(best, best.toArmy(unitTypes), fitness.get(best), EvolutionResult.toArray(history),
+                matchups.size(), simulatedBattles.sum(), cacheHits);
+    }
+
+    /**
+     * @return текущая популяция, упорядоченная по убыванию оценки
+     */
+    public List<PresetGenome> getPopulation() {
+        return List.copyOf(population);
+    }
+
+    /**
+     * @param genome геном, оцененный в ходе поиска
+     * @return оценка генома или null, если он еще не оценивался
+     */
+    public Double getFitness(PresetGenome genome) {
+        return fitness.get(genome);
+    }
+
+    private void seedPopulation(int populationSize) {
+        Set<PresetGenome> initial = new LinkedHashSet<>(population);
+        PlacementStrategy[] strategies = {PlacementStrategy.RANDOM, PlacementStrategy.FRONT_LOADED,
+                PlacementStrategy.BY_UNIT_TYPE};
+        for (PlacementStrategy strategy : strategies) {
+            if (initial.size() >= populationSize) {
+                break;
+            }
+            Army preset = GeneratePresetImpl.builder()
+                    .placement(strategy)
+                    .seed(random.nextLong())
+                    .log(AsyncBattleLog.off())
+                    .build()
+                    .generate(unitTypes, maxPoints);
+            initial.add(repair(PresetGenome.fromArmy(preset, unitTypes).genes()));
+        }
+        int attempts = 0;
+        while (initial.size() < populationSize && attempts++ < populationSize * DUPLICATE_RETRIES) {
+            initial.add(randomGenome());
+        }
+        population = new ArrayList<>(initial);
+    }
+
+    /**
+     * Строит следующее поколение: лучшие геномы переходят без изменений, остальные места занимают потомки
+     * родителей, выбранных турниром.
+     */
+    private List<PresetGenome> breed(int populationSize) {
+        int elite = Math.max(1, populationSize / 10);
+        Set<PresetGenome> next = new LinkedHashSet<>(population.subList(0, Math.min(elite, population.size())));
+        int attempts = 0;
+        while (next.size() < populationSize && attempts++ < populationSize * DUPLICATE_RETRIES) {
+            PresetGenome first = tournament();
+            int[] child = random.nextDouble() < CROSSOVER_RATE
+                    ? crossover(first, tournament())
+                    : first.genes().clone();
+            PresetGenome genome = repair(mutate(child));
+            for (int retry = 0; next.contains(genome) && retry < DUPLICATE_RETRIES; retry++) {
+                genome = repair(mutate(genome.genes().clone()));
+            }
+            next.add(genome);
+        }
+        return new ArrayList<>(next);
+    }
+
+    private PresetGenome tournament() {
+        PresetGenome winner = null;
+        for (int i = 0; i < TOURNAMENT_SIZE; i++) {
+            PresetGenome candidate = population.get(random.nextInt(population.size()));
+            if (winner == null || fitness.get(candidate) > fitness.get(winner)) {
+                winner = candidate;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Равномерное скрещивание по клеткам: каждая клетка зоны берется у одного из родителей.
+     */
+    private int[] crossover(PresetGenome first, PresetGenome second) {
+        int[] cells = new int[PresetGenome.CELLS];
+        Arrays.fill(cells, -1);
+        int[] fromSecond = new int[PresetGenome.CELLS];
+        Arrays.fill(fromSecond, -1);
+        for (int gene : first.genes()) {
+            cells[PresetGenome.cellOf(gene)] = gene;
+        }
+        for (int gene : second.genes()) {
+            fromSecond[PresetGenome.cellOf(gene)] = gene;
+        }
+        int[] child = new int[PresetGenome.CELLS];
+        int size = 0;
+        for (int cell = 0; cell < PresetGenome.CELLS; cell++) {
+            int gene = random.nextBoolean() ? cells[cell] : fromSecond[cell];
+            if (gene >= 0) {
+                child[size++] = gene;
+            }
+        }
+        return Arrays.copyOf(child, size);
+    }
+
+    /**
+     * Применяет к геному одну случайную мутацию: перенос юнита, смену типа, добавление или удаление юнита.
+     */
+    private int[] mutate(int[] genes) {
+        int kind = genes.length == 0 ? 2 : random.nextInt(4);
+        switch (kind) {
+            case 0 -> {
+                int free = randomFreeCell(genes);
+                if (free >= 0) {
+                    int i = random.nextInt(genes.length);
+                    genes[i] = PresetGenome.encode(PresetGenome.typeOf(genes[i]), free);
+                }
+                return genes;
+            }
+            case 1 -> {
+                int i = random.nextInt(genes.length);
+                genes[i] = PresetGenome.encode(random.nextInt(costs.length), PresetGenome.cellOf(genes[i]));
+                return genes;
+            }
+            case 2 -> {
+                int free = randomFreeCell(genes);
+                if (free < 0) {
+                    return genes;
+                }
+                int[] grown = Arrays.copyOf(genes, genes.length + 1);
+                grown[genes.length] = PresetGenome.encode(random.nextInt(costs.length), free);
+                return grown;
+            }
+            default -> {
+                int i = random.nextInt(genes.length);
+                int[] shrunk = Arrays.copyOf(genes, genes.length - 1);
+                if (i < shrunk.length) {
+                    shrunk[i] = genes[genes.length - 1];
+                }
+                return shrunk;
+            }
+        }
+    }
+
+    /**
+     * Приводит геном к допустимому: удаляет случайные юниты, пока не соблюдены бюджет и лимит юнитов одного типа.
+     */
+    private PresetGenome repair(int[] source) {
+        int[] genes = source.clone();
+        int[] counts = new int[costs.length];
+        int cost = 0;
+        for (int gene : genes) {
+            counts[PresetGenome.typeOf(gene)]++;
+            cost += costs[PresetGenome.typeOf(gene)];
+        }
+        int size = genes.length;
+        while (size > 0 && (cost > maxPoints || exceedsTypeLimit(counts))) {
+            int i = random.nextInt(size);
+            int type = PresetGenome.typeOf(genes[i]);
+            if (cost > maxPoints || counts[type] > GeneratePresetImpl.MAX_UNITS_PER_TYPE) {
+                counts[type]--;
+                cost -= costs[type];
+                genes[i] = genes[--size];
+            }
+        }
+        return new PresetGenome(Arrays.copyOf(genes, size));
+    }
+
+    private static boolean exceedsTypeLimit(int[] counts) {
+        for (int count : counts) {
+            if (count > GeneratePresetImpl.MAX_UNITS_PER_TYPE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Случайный пресет: юниты случайных доступных типов ставятся в случайные клетки, пока бюджет позволяет.
+     */
+    private PresetGenome randomGenome() {
+        int[] counts = new int[costs.length];
+        int[] genes = new int[PresetGenome.CELLS];
+        int size = 0;
+        int budget = maxPoints;
+        int[] affordable = new int[costs.length];
+        while (size < PresetGenome.CELLS) {
+            int options = 0;
+            for (int t = 0; t < costs.length; t++) {
+                if (costs[t] <= budget && counts[t] < GeneratePresetImpl.MAX_UNITS_PER_TYPE) {
+                    affordable[options++] = t;
+                }
+            }
+            if (options == 0) {
+                break;
+            }
+            int type = affordable[random.nextInt(options)];
+            genes[size] = PresetGenome.encode(type, randomFreeCell(Arrays.copyOf(genes, size)));
+            size++;
+            counts[type]++;
+            budget -= costs[type];
+        }
+        return new PresetGenome(Arrays.copyOf(genes, size));
+    }
+
+    /**
+     * @return случайная клетка зоны, не занятая геномом, или -1, если зона заполнена
+     */
+    private int randomFreeCell(int[] genes) {
+        if (genes.length >= PresetGenome.CELLS) {
+            return -1;
+        }
+        boolean[] occupied = new boolean[PresetGenome.CELLS];
+        for (int gene : genes) {
+            occupied[PresetGenome.cellOf(gene)] = true;
+        }
+        int pick = random.nextInt(PresetGenome.CELLS - genes.length);
+        for (int cell = 0; cell < PresetGenome.CELLS; cell++) {
+            if (!occupied[cell] && pick-- == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Оценивает геномы популяции и упорядочивает ее по убыванию оценки. Просчитываются только противостояния,
+     * которых еще нет в кэше; они распределяются по потокам пула.
+     */
+    private void evaluate(List<PresetGenome> genomes, ForkJoinPool pool) throws InterruptedException {
+        List<Matchup> pending = new ArrayList<>();
+        Set<Matchup> queued = new HashSet<>();
+        for (PresetGenome genome : genomes) {
+            for (int opponent = 0; opponent < opponents.size(); opponent++) {
+                Matchup matchup = new Matchup(genome, opponent);
+                if (matchups.containsKey(matchup)) {
+                    cacheHits++;
+                } else if (queued.add(matchup)) {
+                    pending.add(matchup);
+                }
+            }
+        }
+
+        try {
+            pool.submit(() -> pending.parallelStream().forEach(matchup -> matchups.put(matchup, play(matchup)))).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Preset evaluation failed", e.getCause());
+        }
+
+        for (PresetGenome genome : genomes) {
+            double total = 0;
+            for (int opponent = 0; opponent < opponents.size(); opponent++) {
+                total += matchups.get(new Matchup(genome, opponent));
+            }
+            fitness.put(genome, total / opponents.size());
+        }
+        // Сортировка устойчива: при равной оценке сохраняется порядок популяции, и элита не меняется без причины
+        genomes.sort(Comparator.comparingDouble((PresetGenome genome) -> fitness.get(genome)).reversed());
+    }
+
+    /**
+     * Проводит серию битв одного противостояния в текущем потоке.
+     *
+     * @return доля побед кандидата, ничья считается за половину победы
+     */
+    private double play(Matchup matchup) {
+        Army candidate = ArmyCopier.copyMirrored(matchup.genome.toArmy(unitTypes), runner.getBattlefield());
+        long matchupSeed = seed + (matchup.opponent + 1L) * 0x9E3779B97F4A7C15L;
+        BattleStatistics statistics = runner.runSequential(candidate, opponents.get(matchup.opponent),
+                battlesPerMatchup, matchupSeed);
+        simulatedBattles.add(statistics.getBattles());
+        return (statistics.getPlayerWins() + 0.5 * statistics.getDraws()) / statistics.getBattles();
+    }
+
+    /**
+     * Ключ кэша: кандидат и номер противника в пуле.
+     */
+    private static final class Matchup {
+        private final PresetGenome genome;
+        private final int opponent;
+
+        private Matchup(PresetGenome genome, int opponent) {
+            this.genome = genome;
+            this.opponent = opponent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Matchup)) {
+                return false;
+            }
+            Matchup other = (Matchup) o;
+            return opponent == other.opponent && genome.equals(other.genome);
+        }
+
+        @Override
+        public int hashCode() {
+            return genome.hashCode() * 31 + opponent;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.heroes_task.programs.evolution;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.battle.ArmyCopier;
+import com.heroes_task.programs.battle.Battlefield;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемая запись пресета для эволюционного поиска: какой тип юнита стоит в какой клетке зоны компьютера.
+ * <p>
+ * Каждый ген — число {@code type * CELLS + cell}, где {@code cell = x * HEIGHT + y}. Гены хранятся отсортированными,
+ * поэтому одинаковые расстановки дают равные геномы независимо от порядка юнитов, и геном можно использовать
+ * как ключ кэша результатов.
+ */
+public final class PresetGenome {
+    /**
+     * Количество рядов зоны компьютера стандартного поля (x = 0..2).
+     */
+    static final int WIDTH = Battlefield.STANDARD.getDeploymentDepth();
+    /**
+     * Длина ряда зоны компьютера.
+     */
+    static final int HEIGHT = Battlefield.STANDARD.getHeight();
+    /**
+     * Количество клеток зоны компьютера.
+     */
+    static final int CELLS = WIDTH * HEIGHT;
+
+    private final int[] genes;
+    private final int hash;
+
+    PresetGenome(int[] genes) {
+        this.genes = genes.clone();
+        Arrays.sort(this.genes);
+        this.hash = Arrays.hashCode(this.genes);
+    }
+
+    /**
+     * Строит геном по готовому пресету компьютера, например по результату {@code GeneratePresetImpl}.
+     *
+     * @param army      пресет компьютера
+     * @param unitTypes шаблоны юнитов, по одному на тип
+     * @return геном пресета
+     * @throws IllegalArgumentException если тип юнита не найден среди шаблонов или юнит стоит вне зоны
+     */
+    public static PresetGenome fromArmy(Army army, List<Unit> unitTypes) {
+        List<Unit> units = army.getUnits();
+        int[] genes = new int[units.size()];
+        for (int i = 0; i < genes.length; i++) {
+            Unit unit = units.get(i);
+            int type = typeIndex(unit.getUnitType(), unitTypes);
+            int x = unit.getxCoordinate();
+            int y = unit.getyCoordinate();
+            if (x < 0 || x >= WIDTH || y < 0 || y >= HEIGHT) {
+                throw new IllegalArgumentException("Unit " + unit.getName() + " is outside of the deployment zone: "
+                        + x + ", " + y);
+            }
+            genes[i] = encode(type, x * HEIGHT + y);
+        }
+        return new PresetGenome(genes);
+    }
+
+    static int encode(int type, int cell) {
+        return type * CELLS + cell;
+    }
+
+    static int typeOf(int gene) {
+        return gene / CELLS;
+    }
+
+    static int cellOf(int gene) {
+        return gene % CELLS;
+    }
+
+    int[] genes() {
+        return genes;
+    }
+
+    /**
+     * @return количество юнитов в пресете
+     */
+    public int size() {
+        return genes.length;
+    }
+
+    /**
+     * @param unitTypes шаблоны юнитов, по одному на тип
+     * @return суммарная стоимость пресета
+     */
+    public int cost(List<Unit> unitTypes) {
+        int cost = 0;
+        for (int gene : genes) {
+            cost += unitTypes.get(typeOf(gene)).getCost();
+        }
+        return cost;
+    }
+
+    /**
+     * Собирает армию компьютера по геному. Юниты получают имена вида «тип номер», как в {@code GeneratePresetImpl}.
+     *
+     * @param unitTypes шаблоны юнитов, по одному на тип
+     * @return новая армия
+     */
+    public Army toArmy(List<Unit> unitTypes) {
+        List<Unit> units = new ArrayList<>(genes.length);
+        int[] numbers = new int[unitTypes.size()];
+        int points = 0;
+        for (int gene : genes) {
+            int type = typeOf(gene);
+            int cell = cellOf(gene);
+            Unit template = unitTypes.get(type);
+            units.add(ArmyCopier.copyUnit(template, template.getUnitType() + " " + numbers[type]++,
+                    cell / HEIGHT, cell % HEIGHT));
+            points += template.getCost();
+        }
+        Army army = new Army(units);
+        army.setPoints(points);
+        return army;
+    }
+
+    private static int typeIndex(String unitType, List<Unit> unitTypes) {
+        for (int t = 0; t < unitTypes.size(); t++) {
+            if (unitTypes.get(t).getUnitType().equals(unitType)) {
+                return t;
+            }
+        }
+        throw new IllegalArgumentException("Unknown unit type: " + unitType);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PresetGenome)) {
+            return false;
+        }
+        PresetGenome other = (PresetGenome) o;
+        return hash == other.hash && Arrays.equals(genes, other.genes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PresetGenome[");
+        for (int i = 0; i < genes.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            int cell = cellOf(genes[i]);
+            builder.append(typeOf(genes[i])).append('@').append(cell / HEIGHT).append(':').append(cell % HEIGHT);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,362 @@
+package com.heroes_task.programs.log;
+
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.PrintBattleLog;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронный журнал битв: поток битвы только кладет событие в кольцевой буфер, а форматирование и вывод
+ * выполняет фоновый поток, записывая события пачками (один вызов вывода и один flush на пачку).
+ * <p>
+ * Буфер выделяется один раз: слот события — это элементы параллельных массивов, поэтому запись атаки
+ * не создает объектов. Писать могут несколько потоков одновременно: номер слота выдается атомарным счетчиком,
+ * а готовность слота отмечается его номером в {@link AtomicLongArray}. Если буфер заполнен, пишущий поток
+ * ждет, пока фоновый поток освободит место: события не теряются.
+ * <p>
+ * Ошибка вывода не останавливает фоновый поток: она печатается в {@code System.err} один раз, а дальнейшие
+ * события разбираются из буфера без вывода, чтобы пишущие потоки не ждали места вечно. Если фоновый поток
+ * все же завершился, события отбрасываются вместо ожидания.
+ * <p>
+ * Сообщения ниже заданной подробности отбрасываются до форматирования; журнал {@link LogLevel#OFF}
+ * не запускает фоновый поток вовсе.
+ */
+public class AsyncBattleLog implements PrintBattleLog, AutoCloseable {
+    /**
+     * Системное свойство с подробностью журнала по умолчанию, например {@code -Dheroes.log.level=OFF}.
+     */
+    public static final String LEVEL_PROPERTY = "heroes.log.level";
+    /**
+     * Размер буфера по умолчанию (степень двойки).
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * Наибольшее количество событий в одной пачке вывода.
+     */
+    private static final int MAX_BATCH = 1024;
+    /**
+     * Пауза фонового потока, когда буфер пуст, и пишущего потока, когда буфер полон.
+     */
+    private static final long PARK_NANOS = 200_000L;
+
+    /**
+     * Бит счетчика выданных номеров, которым {@link #close()} запечатывает журнал: номер с этим битом
+     * выдан после закрытия, и событие с ним отбрасывается.
+     */
+    private static final long SEALED = 1L << 62;
+
+    private static final byte MESSAGE = 0;
+    private static final byte ATTACK = 1;
+
+    private static final AsyncBattleLog DISABLED = new AsyncBattleLog(null, LogLevel.OFF, 1, false);
+
+    private final LogLevel level;
+    private final Appendable out;
+    private final boolean ownsOutput;
+    private final int mask;
+
+    // Слоты кольцевого буфера
+    private final byte[] kinds;
+    private final String[] texts;
+    private final String[] targets;
+    private final int[] damages;
+    private final int[] healths;
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    /**
+     * Количество событий, получивших номер до закрытия: фоновый поток дописывает их все, прежде чем остановиться.
+     * Записывается до {@link #closed}.
+     */
+    private long sealedAt;
+    private volatile boolean closed;
+    /**
+     * Вывод завершился ошибкой: дальнейшие события отбрасываются фоновым потоком.
+     */
+    private boolean outputFailed;
+    private final Thread consumer;
+
+    /**
+     * @param out        куда писать журнал
+     * @param level      подробность журнала
+     * @param capacity   количество слотов буфера (степень двойки)
+     * @param ownsOutput true, если при закрытии журнала нужно закрыть и {@code out}
+     */
+    public AsyncBattleLog(Appendable out, LogLevel level, int capacity, boolean ownsOutput) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        if (level != LogLevel.OFF && out == null) {
+            throw new IllegalArgumentException("out must not be null for level " + level);
+        }
+        this.level = level;
+        this.out = out;
+        this.ownsOutput = ownsOutput;
+        int slots = level == LogLevel.OFF ? 1 : capacity;
+        this.mask = slots - 1;
+        this.kinds = new byte[slots];
+        this.texts = new String[slots];
+        this.targets = new String[slots];
+        this.damages = new int[slots];
+        this.healths = new int[slots];
+        this.published = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            published.set(i, -1L);
+        }
+        if (level == LogLevel.OFF) {
+            this.consumer = null;
+        } else {
+            this.consumer = new Thread(this::drainLoop, "battle-log");
+            this.consumer.setDaemon(true);
+            this.consumer.start();
+        }
+    }
+
+    /**
+     * @param level подробность журнала
+     * @return журнал в стандартный вывод
+     */
+    public static AsyncBattleLog console(LogLevel level) {
+        return level == LogLevel.OFF ? DISABLED : new AsyncBattleLog(System.out, level, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * @param file  файл журнала; существующий файл перезаписывается
+     * @param level подробность журнала
+     * @return журнал в файл в кодировке UTF-8
+     * @throws IOException если файл не удается открыть
+     */
+    public static AsyncBattleLog toFile(Path file, LogLevel level) throws IOException {
+        if (level == LogLevel.OFF) {
+            return DISABLED;
+        }
+        return new AsyncBattleLog(Files.newBufferedWriter(file, StandardCharsets.UTF_8), level, DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     * @return выключенный журнал: все сообщения отбрасываются
+     */
+    public static AsyncBattleLog off() {
+        return DISABLED;
+    }
+
+    /**
+     * Общий журнал в стандартный вывод с подробностью из свойства {@value #LEVEL_PROPERTY}
+     * (по умолчанию {@link LogLevel#DETAILS}, как прежний вывод игры). Дописывается при завершении JVM.
+     *
+     * @return общий журнал
+     */
+    public static AsyncBattleLog defaultLog() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Позволяет не собирать строку сообщения, которое все равно будет отброшено.
+     *
+     * @param messageLevel уровень сообщения
+     * @return true, если сообщение этого уровня попадет в журнал
+     */
+    public boolean isEnabled(LogLevel messageLevel) {
+        return level.isEnabled(messageLevel) && !closed;
+    }
+
+    /**
+     * Записывает текстовое сообщение.
+     *
+     * @param messageLevel уровень сообщения
+     * @param text         строка журнала
+     */
+    public void message(LogLevel messageLevel, String text) {
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        int slot = (int) (sequence & mask);
+        kinds[slot] = MESSAGE;
+        texts[slot] = text;
+        targets[slot] = null;
+        published.lazySet(slot, sequence);
+    }
+
+    /**
+     * Записывает атаку уровня {@link LogLevel#ATTACKS}. Строка журнала собирается в фоновом потоке.
+     *
+     * @param attacker        атакующий юнит
+     * @param target          цель
+     * @param damage          нанесенный урон
+     * @param remainingHealth здоровье цели после атаки
+     */
+    public void attack(Unit attacker, Unit target, int damage, int remainingHealth) {
+        if (!isEnabled(LogLevel.ATTACKS)) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        int slot = (int) (sequence & mask);
+        kinds[slot] = ATTACK;
+        texts[slot] = attacker.getName();
+        targets[slot] = target.getName();
+        damages[slot] = damage;
+        healths[slot] = remainingHealth;
+        published.lazySet(slot, sequence);
+    }
+
+    /**
+     * Позволяет передать журнал в {@code SimulateBattleImpl} вместо журнала игры. Урон берется из базовой атаки,
+     * здоровье — текущее здоровье цели, то есть метод вызывается после нанесения урона.
+     */
+    @Override
+    public void printBattleLog(Unit attackingUnit, Unit target) {
+        attack(attackingUnit, target, attackingUnit.getBaseAttack(), target.getHealth());
+    }
+
+    /**
+     * Ждет, пока фоновый поток запишет все события, положенные в буфер до вызова.
+     */
+    public void flush() {
+        if (consumer == null) {
+            return;
+        }
+        long target = claimed.get();
+        while (consumed < target && consumer.isAlive()) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Дописывает буфер и останавливает фоновый поток. Сообщения после закрытия отбрасываются.
+     * <p>
+     * Счетчик номеров запечатывается одной атомарной операцией, поэтому каждое событие либо получает номер
+     * до закрытия и будет записано, либо получает запечатанный номер и отбрасывается — даже если пишущий поток
+     * проверил {@link #isEnabled} до закрытия, а номер взял после.
+     */
+    @Override
+    public synchronized void close() {
+        if (consumer == null || closed) {
+            return;
+        }
+        sealedAt = claimed.getAndAdd(SEALED);
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Выдает номер события; при заполненном буфере ждет, пока фоновый поток освободит его слот.
+     * Слот события — остаток номера по размеру буфера.
+     *
+     * @return номер события или -1, если журнал закрыт или фоновый поток завершился и слот уже не освободится
+     */
+    private long claim() {
+        long sequence = claimed.getAndIncrement();
+        if (sequence >= SEALED) {
+            return -1;
+        }
+        while (sequence - consumed > mask) {
+            if (!consumer.isAlive()) {
+                return -1;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return sequence;
+    }
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(MAX_BATCH * 64);
+        long cursor = 0;
+        while (true) {
+            int count = 0;
+            while (count < MAX_BATCH) {
+                int slot = (int) (cursor & mask);
+                if (published.get(slot) != cursor) {
+                    break;
+                }
+                format(slot, batch);
+                texts[slot] = null;
+                targets[slot] = null;
+                cursor++;
+                count++;
+            }
+            if (count > 0) {
+                write(batch);
+                batch.setLength(0);
+                consumed = cursor;
+            } else if (closed && cursor == sealedAt) {
+                break;
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        if (ownsOutput && out instanceof Closeable) {
+            try {
+                ((Closeable) out).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close battle log", e);
+            }
+        }
+    }
+
+    private void format(int slot, StringBuilder batch) {
+        if (kinds[slot] == ATTACK) {
+            batch.append(texts[slot]).append(" атакует ").append(targets[slot])
+                    .append(": урон ").append(damages[slot])
+                    .append(", осталось здоровья ").append(healths[slot]);
+        } else {
+            batch.append(texts[slot]);
+        }
+        batch.append(System.lineSeparator());
+    }
+
+    private void write(CharSequence batch) {
+        if (outputFailed) {
+            return;
+        }
+        try {
+            out.append(batch);
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Фоновый поток продолжает освобождать буфер, иначе пишущие потоки ждали бы места вечно
+            outputFailed = true;
+            System.err.println("Battle log output failed, further events are dropped: " + e);
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final AsyncBattleLog INSTANCE = createDefault();
+
+        private static AsyncBattleLog createDefault() {
+            LogLevel level = LogLevel.valueOf(System.getProperty(LEVEL_PROPERTY, LogLevel.DETAILS.name()));
+            AsyncBattleLog log = console(level);
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close, "battle-log-shutdown"));
+            return log;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.heroes_task.programs.log;
+
+/**
+ * Подробность журнала. Каждый следующий уровень включает сообщения предыдущих.
+ */
+public enum LogLevel {
+    /**
+     * Журнал выключен, сообщения отбрасываются без форматирования. Уровень безголовых прогонов.
+     */
+    OFF,
+    /**
+     * Итоги: победитель битвы, начало и конец генерации пресета.
+     */
+    SUMMARY,
+    /**
+     * Подробности пресета: расстановка каждого юнита.
+     */
+    DETAILS,
+    /**
+     * Каждая атака: атакующий, цель, урон и оставшееся здоровье цели.
+     */
+    ATTACKS;
+
+    /**
+     * @param messageLevel уровень сообщения
+     * @return true, если при этой подробности журнала сообщение нужно записать
+     */
+    public boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel != OFF && messageLevel.ordinal() <= ordinal();
+    }
+}
@@ -0,0 +1,32 @@
+package com.heroes_task.programs.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JDK Flight Recorder на одну битву {@code SimulateBattleImpl}: длительность, раунды и итог.
+ * Записывается, только если событие включено в настройках записи JFR.
+ */
+@Name("com.heroes_task.Battle")
+@Label("Battle")
+@Category({"Heroes", "Simulation"})
+@Description("One simulated battle")
+public class BattleEvent extends Event {
+    @Label("Units")
+    public int units;
+
+    @Label("Rounds")
+    public int rounds;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Player Health")
+    public int playerHealth;
+
+    @Label("Computer Health")
+    public int computerHealth;
+}
@@ -0,0 +1,124 @@
+package com.heroes_task.programs.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасная гистограмма неотрицательных значений в духе HdrHistogram.
+ * <p>
+ * Значения раскладываются по логарифмическим корзинам (степеням двойки), каждая из которых делится на
+ * {@value #SUB_BUCKETS} линейных, поэтому перцентиль отличается от истинного значения не больше чем на 1/16
+ * при любом масштабе — от длины пути в шагах до длительности раунда в наносекундах. Значения меньше
+ * {@value #SUB_BUCKETS} хранятся точно. Счетчики корзин — {@link LongAdder}: одновременно пишущие потоки
+ * расходятся по разным ячейкам и не спорят за одну кэш-линию. Чтение во время записи дает приблизительный срез.
+ */
+public class ConcurrentHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public ConcurrentHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Добавляет значение в гистограмму. Отрицательные значения учитываются как 0.
+     *
+     * @param value регистрируемое значение
+     */
+    public void record(long value) {
+        long bounded = Math.max(value, 0);
+        counts[bucketOf(bounded)].increment();
+        totalCount.increment();
+        sum.add(bounded);
+        max.accumulate(bounded);
+    }
+
+    /**
+     * Обнуляет гистограмму. Значения, записываемые одновременно со сбросом, могут частично сохраниться.
+     */
+    public void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+        totalCount.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long total = totalCount.sum();
+        return total == 0 ? 0.0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Возвращает верхнюю границу корзины, в которую попадает заданная доля выборки.
+     *
+     * @param percentile перцентиль в диапазоне [0, 100]
+     * @return значение перцентиля или 0 для пустой гистограммы
+     */
+    public long getPercentile(double percentile) {
+        long total = totalCount.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+        long maxValue = max.get();
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i].sum();
+            if (seen >= Math.max(threshold, 1)) {
+                return Math.min(highestInBucket(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Номер корзины: значения меньше {@link #SUB_BUCKETS} — как есть, остальные — по старшему биту
+     * и следующим за ним {@link #SUB_BUCKET_BITS} битам.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) | (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return наибольшее значение, попадающее в корзину
+     */
+    static long highestInBucket(int bucket) {
+        int block = bucket >>> SUB_BUCKET_BITS;
+        if (block == 0) {
+            return bucket;
+        }
+        long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (block - 1);
+        return lowest + (1L << (block - 1)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "mean=" + String.format("%.2f", getMean()) +
+                " p50=" + getPercentile(50) +
+                " p90=" + getPercentile(90) +
+                " p99=" + getPercentile(99) +
+                " max=" + getMax();
+    }
+}
@@ -0,0 +1,64 @@
+package com.heroes_task.programs.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JDK Flight Recorder на один запрос поиска пути {@code UnitTargetPathFinderImpl}.
+ * <p>
+ * Запросов в пакетном прогоне миллионы, а обычный стоит единицы микросекунд, поэтому по умолчанию пишутся
+ * только медленные запросы (порог {@value #DEFAULT_THRESHOLD}). Все запросы пишутся при пороге 0 в настройках
+ * записи: {@code com.heroes_task.PathQuery#threshold=0 ms}.
+ */
+@Name("com.heroes_task.PathQuery")
+@Label("Path Query")
+@Category({"Heroes", "Path Finding"})
+@Description("One path or reachability query")
+@Threshold(PathQueryEvent.DEFAULT_THRESHOLD)
+public class PathQueryEvent extends Event {
+    /**
+     * Порог длительности, с которого запрос записывается по умолчанию.
+     */
+    public static final String DEFAULT_THRESHOLD = "100 us";
+    /**
+     * Точный поиск пути в ширину.
+     */
+    public static final String BFS = "BFS";
+    /**
+     * Поле расстояний от атакующего до всех кандидатов.
+     */
+    public static final String FLOOD = "FLOOD";
+    /**
+     * Иерархический поиск пути.
+     */
+    public static final String HIERARCHICAL = "HPA*";
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Start X")
+    public int startX;
+
+    @Label("Start Y")
+    public int startY;
+
+    @Label("Target X")
+    public int targetX;
+
+    @Label("Target Y")
+    public int targetY;
+
+    @Label("Nodes Expanded")
+    public int nodesExpanded;
+
+    @Label("Queue Peak")
+    public int queuePeak;
+
+    @Label("Path Length")
+    @Description("Path length in steps or -1 if the target is unreachable")
+    public int pathLength;
+}
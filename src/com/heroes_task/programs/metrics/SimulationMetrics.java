@@ -0,0 +1,242 @@
+package com.heroes_task.programs.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики горячих путей симуляции: битвы, поиск пути, поиск целей и генерация пресетов.
+ * <p>
+ * По умолчанию метрики выключены, и каждая точка записи стоит одного чтения volatile-флага. Включаются свойством
+ * {@value #ENABLED_PROPERTY} ({@code -Dheroes.metrics=true}) или {@link #setEnabled(boolean)}. Счетчики —
+ * {@link LongAdder}, распределения — {@link ConcurrentHistogram}, поэтому записывать могут все потоки пакетного
+ * прогона одновременно. Метрики общие на JVM и накапливаются, пока их не сбросит {@link #reset()}.
+ * <p>
+ * Для отдельных битв и запросов поиска пути есть события JDK Flight Recorder ({@link BattleEvent},
+ * {@link PathQueryEvent}): они пишутся, только когда идет запись JFR, независимо от этих метрик.
+ */
+public final class SimulationMetrics {
+    /**
+     * Системное свойство, включающее метрики при запуске JVM.
+     */
+    public static final String ENABLED_PROPERTY = "heroes.metrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    // Битвы
+    private final LongAdder battles = new LongAdder();
+    private final ConcurrentHistogram roundsPerBattle = new ConcurrentHistogram();
+    private final ConcurrentHistogram roundNanos = new ConcurrentHistogram();
+    private final ConcurrentHistogram attacksPerRound = new ConcurrentHistogram();
+
+    // Поиск пути
+    private final LongAdder pathQueries = new LongAdder();
+    private final LongAdder pathFailures = new LongAdder();
+    private final ConcurrentHistogram nodesExpanded = new ConcurrentHistogram();
+    private final ConcurrentHistogram queuePeak = new ConcurrentHistogram();
+    private final ConcurrentHistogram pathLength = new ConcurrentHistogram();
+
+    // Поиск целей ближнего боя
+    private final LongAdder suitableCalls = new LongAdder();
+    private final ConcurrentHistogram candidatesPerCall = new ConcurrentHistogram();
+
+    // Генерация пресетов
+    private final LongAdder presets = new LongAdder();
+    private final ConcurrentHistogram unitsPerPreset = new ConcurrentHistogram();
+    private final ConcurrentHistogram pointsUsed = new ConcurrentHistogram();
+    private final ConcurrentHistogram pointsLeft = new ConcurrentHistogram();
+
+    private SimulationMetrics() {
+    }
+
+    /**
+     * @return true, если метрики записываются
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Включает или выключает запись метрик. Накопленные значения сохраняются.
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * @return общие метрики JVM
+     */
+    public static SimulationMetrics global() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Учитывает завершенную битву.
+     *
+     * @param rounds количество сыгранных раундов
+     */
+    public void recordBattle(int rounds) {
+        battles.increment();
+        roundsPerBattle.record(rounds);
+    }
+
+    /**
+     * Учитывает сыгранный раунд.
+     *
+     * @param nanos   длительность раунда, нс
+     * @param attacks количество ходов, в которых юнит нашел цель
+     */
+    public void recordRound(long nanos, int attacks) {
+        roundNanos.record(nanos);
+        attacksPerRound.record(attacks);
+    }
+
+    /**
+     * Учитывает запрос поиска пути.
+     *
+     * @param expanded количество раскрытых вершин поиска (клеток или вершин абстрактного графа)
+     * @param peak     наибольший размер очереди поиска
+     * @param length   длина найденного пути в шагах или -1, если цель недостижима
+     */
+    public void recordPathQuery(int expanded, int peak, int length) {
+        pathQueries.increment();
+        nodesExpanded.record(expanded);
+        queuePeak.record(peak);
+        if (length < 0) {
+            pathFailures.increment();
+        } else {
+            pathLength.record(length);
+        }
+    }
+
+    /**
+     * Учитывает вызов поиска целей ближнего боя.
+     *
+     * @param candidates количество найденных целей
+     */
+    public void recordSuitableUnits(int candidates) {
+        suitableCalls.increment();
+        candidatesPerCall.record(candidates);
+    }
+
+    /**
+     * Учитывает сгенерированный пресет.
+     *
+     * @param units     количество расставленных юнитов
+     * @param points    потраченные очки
+     * @param maxPoints бюджет пресета
+     */
+    public void recordPreset(int units, int points, int maxPoints) {
+        presets.increment();
+        unitsPerPreset.record(units);
+        pointsUsed.record(points);
+        pointsLeft.record(maxPoints - points);
+    }
+
+    /**
+     * Обнуляет все метрики, например перед очередной серией битв.
+     */
+    public void reset() {
+        battles.reset();
+        roundsPerBattle.reset();
+        roundNanos.reset();
+        attacksPerRound.reset();
+        pathQueries.reset();
+        pathFailures.reset();
+        nodesExpanded.reset();
+        queuePeak.reset();
+        pathLength.reset();
+        suitableCalls.reset();
+        candidatesPerCall.reset();
+        presets.reset();
+        unitsPerPreset.reset();
+        pointsUsed.reset();
+        pointsLeft.reset();
+    }
+
+    public long getBattles() {
+        return battles.sum();
+    }
+
+    public ConcurrentHistogram getRoundsPerBattle() {
+        return roundsPerBattle;
+    }
+
+    public ConcurrentHistogram getRoundNanos() {
+        return roundNanos;
+    }
+
+    public ConcurrentHistogram getAttacksPerRound() {
+        return attacksPerRound;
+    }
+
+    public long getPathQueries() {
+        return pathQueries.sum();
+    }
+
+    public long getPathFailures() {
+        return pathFailures.sum();
+    }
+
+    public ConcurrentHistogram getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public ConcurrentHistogram getQueuePeak() {
+        return queuePeak;
+    }
+
+    public ConcurrentHistogram getPathLength() {
+        return pathLength;
+    }
+
+    public long getSuitableCalls() {
+        return suitableCalls.sum();
+    }
+
+    public ConcurrentHistogram getCandidatesPerCall() {
+        return candidatesPerCall;
+    }
+
+    public long getPresets() {
+        return presets.sum();
+    }
+
+    public ConcurrentHistogram getUnitsPerPreset() {
+        return unitsPerPreset;
+    }
+
+    public ConcurrentHistogram getPointsUsed() {
+        return pointsUsed;
+    }
+
+    public ConcurrentHistogram getPointsLeft() {
+        return pointsLeft;
+    }
+
+    /**
+     * @return сводка всех метрик в несколько строк
+     */
+    public String summary() {
+        String n = System.lineSeparator();
+        return "Битв: " + getBattles() + n +
+                "Раунды на битву: " + roundsPerBattle + n +
+                "Длительность раунда, нс: " + roundNanos + n +
+                "Атаки за раунд: " + attacksPerRound + n +
+                "Запросов пути: " + getPathQueries() + ", цель недостижима: " + getPathFailures() + n +
+                "Раскрыто вершин: " + nodesExpanded + n +
+                "Пик очереди: " + queuePeak + n +
+                "Длина пути: " + pathLength + n +
+                "Поисков целей: " + getSuitableCalls() + ", целей за вызов: " + candidatesPerCall + n +
+                "Пресетов: " + getPresets() + ", юнитов: " + unitsPerPreset + n +
+                "Очки пресета: " + pointsUsed + n +
+                "Остаток бюджета: " + pointsLeft;
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    private static final class Holder {
+        private static final SimulationMetrics INSTANCE = new SimulationMetrics();
+    }
+}
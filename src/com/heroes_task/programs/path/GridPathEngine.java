@@ -0,0 +1,405 @@
+package com.heroes_task.programs.path;
+
+import com.battle.heroes.army.programs.Edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Поиск кратчайшего пути на прямоугольной сетке поля боя без выделения памяти на каждый запрос.
+ * <p>
+ * Клетка (x, y) кодируется индексом {@code x * height + y}. Занятость клеток хранится в битовой маске {@code long[]},
+ * расстояния, родители и очередь обхода — в заранее выделенных массивах {@code int[]}. Чтобы не очищать массивы перед
+ * каждым запросом, посещенные клетки помечаются номером поколения: клетка считается посещенной, только если ее метка
+ * совпадает с номером текущего запроса.
+ * <p>
+ * Ребра сетки имеют единичный вес, поэтому поиск в ширину дает тот же кратчайший путь, что и алгоритм Дейкстры.
+ * Экземпляр не потокобезопасен; для многопоточного использования есть {@link #forCurrentThread(int, int)}.
+ * Размер последнего обхода доступен через {@link #getLastExpanded()} и {@link #getLastQueuePeak()}.
+ */
+public class GridPathEngine {
+    /**
+     * Смещения по x и y для четырех направлений движения: вверх, вниз, влево, вправо.
+     * Порядок совпадает с порядком обхода соседей в исходном алгоритме.
+     */
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+
+    /**
+     * Движок текущего потока. Каждому потоку нужен свой набор буферов, поэтому движки не разделяются.
+     */
+    private static final ThreadLocal<GridPathEngine> CURRENT = new ThreadLocal<>();
+
+    private final int width;
+    private final int height;
+    private final long[] occupied;
+    private final int[] visitStamp;
+    private final int[] distance;
+    private final int[] parent;
+    private final int[] queue;
+    private int stamp;
+    private int lastExpanded;
+    private int lastQueuePeak;
+
+    /**
+     * @param width  ширина поля (количество значений координаты x)
+     * @param height высота поля (количество значений координаты y)
+     */
+    public GridPathEngine(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        int cells = width * height;
+        this.occupied = new long[(cells + 63) >>> 6];
+        this.visitStamp = new int[cells];
+        this.distance = new int[cells];
+        this.parent = new int[cells];
+        this.queue = new int[cells];
+    }
+
+    /**
+     * Возвращает движок, закрепленный за текущим потоком, создавая его при первом обращении
+     * или при смене размеров поля.
+     *
+     * @param width  ширина поля
+     * @param height высота поля
+     * @return движок текущего потока
+     */
+    public static GridPathEngine forCurrentThread(int width, int height) {
+        GridPathEngine engine = CURRENT.get();
+        if (engine == null || engine.width != width || engine.height != height) {
+            engine = new GridPathEngine(width, height);
+            CURRENT.set(engine);
+        }
+        return engine;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return количество клеток, раскрытых последним поиском пути или построением поля расстояний
+     */
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+
+    /**
+     * @return наибольшая длина очереди обхода в последнем поиске
+     */
+    public int getLastQueuePeak() {
+        return lastQueuePeak;
+    }
+
+    /**
+     * Проверяет, что координаты лежат в пределах поля.
+     */
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Освобождает все клетки поля.
+     */
+    public void clearOccupancy() {
+        Arrays.fill(occupied, 0L);
+    }
+
+    /**
+     * Помечает клетку занятой. Координаты за пределами поля игнорируются.
+     */
+    public void block(int x, int y) {
+        if (inBounds(x, y)) {
+            int cell = x * height + y;
+            occupied[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    /**
+     * Освобождает клетку. Координаты за пределами поля игнорируются.
+     */
+    public void unblock(int x, int y) {
+        if (inBounds(x, y)) {
+            int cell = x * height + y;
+            occupied[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+
+    /**
+     * @return true, если клетка лежит на поле и занята
+     */
+    public boolean isBlocked(int x, int y) {
+        if (!inBounds(x, y)) {
+            return false;
+        }
+        int cell = x * height + y;
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Ищет кратчайший путь из стартовой клетки в целевую по свободным клеткам.
+     * Стартовая и целевая клетки считаются проходимыми независимо от маски занятости.
+     * <p>
+     * Путь включает обе конечные клетки. Если цель недостижима, возвращается путь из одной целевой клетки —
+     * так вел себя исходный алгоритм, и программы юнитов из библиотеки на это рассчитывают.
+     *
+     * @return путь от старта до цели; единственное выделение памяти за запрос
+     */
+    public List<Edge> findPath(int startX, int startY, int targetX, int targetY) {
+        return findPath(occupied, startX, startY, targetX, targetY);
+    }
+
+    /**
+     * Ищет кратчайший путь, используя занятость клеток из живой карты битвы вместо собственной маски движка.
+     * Карта должна иметь те же размеры, что и движок.
+     *
+     * @return путь от старта до цели, см. {@link #findPath(int, int, int, int)}
+     */
+    public List<Edge> findPath(OccupancyGrid grid, int startX, int startY, int targetX, int targetY) {
+        if (grid.getWidth() != width || grid.getHeight() != height) {
+            throw new IllegalArgumentException("Grid size " + grid.getWidth() + "x" + grid.getHeight()
+                    + " does not match engine size " + width + "x" + height);
+        }
+        return findPath(grid.occupiedWords(), startX, startY, targetX, targetY);
+    }
+
+    private List<Edge> findPath(long[] occupied, int startX, int startY, int targetX, int targetY) {
+        int length = search(occupied, startX, startY, targetX, targetY);
+        if (length < 0) {
+            List<Edge> single = new ArrayList<>(1);
+            single.add(new Edge(targetX, targetY));
+            return single;
+        }
+        return buildPath(targetX * height + targetY, length, -1);
+    }
+
+    /**
+     * Выполняет поиск в ширину от старта до цели.
+     *
+     * @return длина кратчайшего пути в шагах или -1, если цель недостижима или лежит вне поля
+     */
+    private int search(long[] occupied, int startX, int startY, int targetX, int targetY) {
+        lastExpanded = 0;
+        lastQueuePeak = 0;
+        if (!inBounds(startX, startY) || !inBounds(targetX, targetY)) {
+            return -1;
+        }
+        int currentStamp = nextStamp();
+        int start = startX * height + startY;
+        int target = targetX * height + targetY;
+
+        visitStamp[start] = currentStamp;
+        distance[start] = 0;
+        parent[start] = -1;
+        if (start == target) {
+            return 0;
+        }
+
+        int head = 0;
+        int tail = 0;
+        int peak = 1;
+        queue[tail++] = start;
+        while (head < tail) {
+            peak = Math.max(peak, tail - head);
+            int current = queue[head++];
+            int cx = current / height;
+            int cy = current - cx * height;
+            for (int dir = 0; dir < DX.length; dir++) {
+                int nx = cx + DX[dir];
+                int ny = cy + DY[dir];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue; // Пропускаем клетки за пределами поля
+                }
+                int next = nx * height + ny;
+                if (visitStamp[next] == currentStamp) {
+                    continue;
+                }
+                if (next != target && (occupied[next >>> 6] & (1L << next)) != 0) {
+                    continue; // Пропускаем занятые клетки
+                }
+                visitStamp[next] = currentStamp;
+                distance[next] = distance[current] + 1;
+                parent[next] = current;
+                if (next == target) {
+                    lastExpanded = head;
+                    lastQueuePeak = peak;
+                    return distance[next];
+                }
+                queue[tail++] = next;
+            }
+        }
+        lastExpanded = head;
+        lastQueuePeak = peak;
+        return -1;
+    }
+
+    /**
+     * Строит поле расстояний: один поиск в ширину от стартовой клетки по всем свободным клеткам поля.
+     * После этого {@link #distanceTo(int, int)} и {@link #pathTo(int, int)} отвечают для любой клетки,
+     * в том числе занятой (например, клетки вражеского юнита), пока не выполнен следующий запрос к движку.
+     *
+     * @return количество клеток, до которых дошел поиск
+     */
+    public int floodFill(int startX, int startY) {
+        return flood(occupied, startX, startY);
+    }
+
+    /**
+     * Строит поле расстояний по живой карте битвы, см. {@link #floodFill(int, int)}.
+     *
+     * @return количество клеток, до которых дошел поиск
+     */
+    public int floodFill(OccupancyGrid grid, int startX, int startY) {
+        if (grid.getWidth() != width || grid.getHeight() != height) {
+            throw new IllegalArgumentException("Grid size " + grid.getWidth() + "x" + grid.getHeight()
+                    + " does not match engine size " + width + "x" + height);
+        }
+        return flood(grid.occupiedWords(), startX, startY);
+    }
+
+    private int flood(long[] occupied, int startX, int startY) {
+        int currentStamp = nextStamp();
+        lastExpanded = 0;
+        lastQueuePeak = 0;
+        if (!inBounds(startX, startY)) {
+            return 0;
+        }
+        int start = startX * height + startY;
+        visitStamp[start] = currentStamp;
+        distance[start] = 0;
+        parent[start] = -1;
+
+        int head = 0;
+        int tail = 0;
+        int peak = 1;
+        queue[tail++] = start;
+        while (head < tail) {
+            peak = Math.max(peak, tail - head);
+            int current = queue[head++];
+            int cx = current / height;
+            int cy = current - cx * height;
+            for (int dir = 0; dir < DX.length; dir++) {
+                int nx = cx + DX[dir];
+                int ny = cy + DY[dir];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int next = nx * height + ny;
+                if (visitStamp[next] == currentStamp || (occupied[next >>> 6] & (1L << next)) != 0) {
+                    continue;
+                }
+                visitStamp[next] = currentStamp;
+                distance[next] = distance[current] + 1;
+                parent[next] = current;
+                queue[tail++] = next;
+            }
+        }
+        lastExpanded = head;
+        lastQueuePeak = peak;
+        return tail;
+    }
+
+    /**
+     * Возвращает длину кратчайшего пути до клетки по последнему полю расстояний.
+     * Занятая клетка (юнит-цель) достижима, если достижим хотя бы один ее свободный сосед.
+     *
+     * @return длина пути в шагах или -1, если клетка недостижима
+     */
+    public int distanceTo(int x, int y) {
+        int cell = reachedNeighbour(x, y);
+        if (cell < 0) {
+            return -1;
+        }
+        int target = x * height + y;
+        return cell == target ? distance[cell] : distance[cell] + 1;
+    }
+
+    /**
+     * Возвращает кратчайший путь до клетки по последнему полю расстояний, включая стартовую и целевую клетки.
+     *
+     * @return путь или пустой список, если клетка недостижима
+     */
+    public List<Edge> pathTo(int x, int y) {
+        int cell = reachedNeighbour(x, y);
+        if (cell < 0) {
+            return new ArrayList<>(0);
+        }
+        int target = x * height + y;
+        if (cell == target) {
+            return buildPath(cell, distance[cell], -1);
+        }
+        return buildPath(cell, distance[cell], target);
+    }
+
+    /**
+     * Находит клетку поля расстояний, через которую проходит кратчайший путь к (x, y):
+     * саму клетку, если поиск до нее дошел, иначе ближайшего достигнутого соседа.
+     *
+     * @return индекс клетки или -1, если клетка недостижима
+     */
+    private int reachedNeighbour(int x, int y) {
+        if (!inBounds(x, y)) {
+            return -1;
+        }
+        int target = x * height + y;
+        if (visitStamp[target] == stamp) {
+            return target;
+        }
+        int best = -1;
+        for (int dir = 0; dir < DX.length; dir++) {
+            int nx = x + DX[dir];
+            int ny = y + DY[dir];
+            if (!inBounds(nx, ny)) {
+                continue;
+            }
+            int next = nx * height + ny;
+            if (visitStamp[next] == stamp && (best < 0 || distance[next] < distance[best])) {
+                best = next;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Восстанавливает путь по массиву родителей, двигаясь от конечной клетки к старту.
+     *
+     * @param last       последняя клетка пути, достигнутая поиском
+     * @param length     длина пути до нее в шагах
+     * @param extraLast  занятая клетка-цель, которую нужно дописать после {@code last}, или -1
+     */
+    private List<Edge> buildPath(int last, int length, int extraLast) {
+        // Очередь обхода больше не нужна — используем ее как буфер клеток пути
+        int cell = last;
+        for (int i = length; i >= 0; i--) {
+            queue[i] = cell;
+            cell = parent[cell];
+        }
+        List<Edge> path = new ArrayList<>(extraLast < 0 ? length + 1 : length + 2);
+        for (int i = 0; i <= length; i++) {
+            int x = queue[i] / height;
+            path.add(new Edge(x, queue[i] - x * height));
+        }
+        if (extraLast >= 0) {
+            int x = extraLast / height;
+            path.add(new Edge(x, extraLast - x * height));
+        }
+        return path;
+    }
+
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            // Переполнение поколений: сбрасываем метки, чтобы старые значения не совпали с новыми
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+}
@@ -0,0 +1,696 @@
+package com.heroes_task.programs.path;
+
+import com.battle.heroes.army.programs.Edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Иерархический поиск пути (в духе HPA*) для больших полей боя.
+ * <p>
+ * Поле делится на квадратные кластеры со стороной {@code clusterSize}. На каждой границе соседних кластеров
+ * непрерывные отрезки клеток, свободных с обеих сторон, образуют входы; у короткого входа одна пара переходных
+ * клеток посередине, у длинного — две, по краям. Переходные клетки — вершины абстрактного графа: внутри кластера
+ * они соединены ребрами длины кратчайшего пути по кластеру, через границу — ребрами длины 1.
+ * <p>
+ * Запрос подключает старт и цель к вершинам их кластеров поиском в ширину внутри кластера, ищет путь по
+ * абстрактному графу алгоритмом A* с манхэттенской эвристикой и уточняет каждое ребро поиском в ширину
+ * внутри одного кластера. Поэтому стоимость запроса определяется размером кластера и количеством вершин
+ * на пути, а не площадью поля. Путь может быть на несколько шагов длиннее кратчайшего, но если путь есть,
+ * он будет найден.
+ * <p>
+ * Карта строится по живой {@link OccupancyGrid}: каждое изменение занятости помечает кластер клетки
+ * (и соседний, если клетка лежит на общей границе), а помеченные кластеры перестраиваются при следующем запросе.
+ * В битве юниты только погибают, поэтому между запросами перестраиваются единицы кластеров.
+ * Экземпляр принадлежит одной карте и, как и она, не потокобезопасен.
+ */
+public class HierarchicalPathEngine {
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+    /**
+     * Длина входа, начиная с которой на нем ставятся две пары переходных клеток вместо одной.
+     */
+    private static final int WIDE_ENTRANCE = 6;
+    private static final int INFINITY = Integer.MAX_VALUE;
+    /**
+     * Метка «вершина подключена прямо к старту» в массиве предшественников абстрактного поиска.
+     */
+    private static final int FROM_START = -1;
+
+    private final OccupancyGrid grid;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersY;
+
+    // Абстрактный граф: вершины кластера, попарные расстояния внутри кластера и номер вершины по клетке
+    private final int[][] nodes;
+    private final int[][] distances;
+    private final int[] nodeIndex;
+    private final boolean[] dirty;
+    private final int[] dirtyStack;
+    private int dirtyCount;
+    private final int[] nodeBuffer;
+
+    // Поиск в ширину внутри одного кластера, в локальных индексах (x - x0) * clusterSize + (y - y0)
+    private final int[] localStamp;
+    private final int[] localDistance;
+    private final int[] localParent;
+    private final int[] localQueue;
+    private int localId;
+    private int boundX0;
+    private int boundX1;
+    private int boundY0;
+    private int boundY1;
+
+    // Абстрактный поиск: стоимость, предшественник, подключение к старту и к цели по клеткам вершин
+    private final int[] searchStamp;
+    private final int[] cost;
+    private final int[] previous;
+    private final int[] startVia;
+    private final int[] goalStamp;
+    private final int[] goalCost;
+    private final int[] goalVia;
+    private int searchId;
+    private long[] heapKeys = new long[64];
+    private int[] heapCells = new int[64];
+    private int heapSize;
+    private int heapPeak;
+    private int lastExpanded;
+    private final int[] chain;
+
+    private final List<List<Edge>> rememberedPaths = new ArrayList<>();
+    private long rebuiltClusters;
+
+    /**
+     * @param grid        карта занятости, по которой идет поиск
+     * @param clusterSize сторона кластера
+     */
+    public HierarchicalPathEngine(OccupancyGrid grid, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("clusterSize must be at least 2: " + clusterSize);
+        }
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.clusterSize = clusterSize;
+        int clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        int clusters = clustersX * clustersY;
+        int cells = width * height;
+
+        this.nodes = new int[clusters][];
+        this.distances = new int[clusters][];
+        this.nodeIndex = new int[cells];
+        Arrays.fill(nodeIndex, -1);
+        this.dirty = new boolean[clusters];
+        this.dirtyStack = new int[clusters];
+        for (int c = 0; c < clusters; c++) {
+            nodes[c] = new int[0];
+            distances[c] = new int[0];
+            markDirty(c);
+        }
+        this.nodeBuffer = new int[4 * clusterSize];
+
+        int local = clusterSize * clusterSize;
+        this.localStamp = new int[local];
+        this.localDistance = new int[local];
+        this.localParent = new int[local];
+        this.localQueue = new int[local];
+
+        this.searchStamp = new int[cells];
+        this.cost = new int[cells];
+        this.previous = new int[cells];
+        this.startVia = new int[cells];
+        this.goalStamp = new int[cells];
+        this.goalCost = new int[cells];
+        this.goalVia = new int[cells];
+        this.chain = new int[cells];
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * @return сколько раз кластеры перестраивались с момента создания (для оценки стоимости обновлений)
+     */
+    public long getRebuiltClusters() {
+        return rebuiltClusters;
+    }
+
+    /**
+     * @return количество вершин абстрактного графа, раскрытых последним поиском
+     */
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+
+    /**
+     * @return наибольший размер очереди A* в последнем поиске
+     */
+    public int getLastQueuePeak() {
+        return heapPeak;
+    }
+
+    /**
+     * Сообщает, что клетка освободилась или занялась. Вызывается картой занятости.
+     */
+    void cellChanged(int x, int y) {
+        int cx = x / clusterSize;
+        int cy = y / clusterSize;
+        markDirty(cx * clustersY + cy);
+        // Клетка на границе кластера влияет и на входы соседнего кластера
+        if (x % clusterSize == 0 && x > 0) {
+            markDirty((cx - 1) * clustersY + cy);
+        }
+        if (x % clusterSize == clusterSize - 1 && x + 1 < width) {
+            markDirty((cx + 1) * clustersY + cy);
+        }
+        if (y % clusterSize == 0 && y > 0) {
+            markDirty(cx * clustersY + cy - 1);
+        }
+        if (y % clusterSize == clusterSize - 1 && y + 1 < height) {
+            markDirty(cx * clustersY + cy + 1);
+        }
+    }
+
+    private void markDirty(int cluster) {
+        if (!dirty[cluster]) {
+            dirty[cluster] = true;
+            dirtyStack[dirtyCount++] = cluster;
+        }
+    }
+
+    /**
+     * Ищет путь из стартовой клетки в целевую. Стартовая и целевая клетки считаются проходимыми
+     * независимо от занятости, как в {@link GridPathEngine#findPath(OccupancyGrid, int, int, int, int)}.
+     * Если цель недостижима, возвращается путь из одной целевой клетки.
+     *
+     * @return путь от старта до цели, включая обе клетки
+     */
+    public List<Edge> findPath(int startX, int startY, int targetX, int targetY) {
+        List<Edge> path = search(startX, startY, targetX, targetY);
+        if (path == null) {
+            path = new ArrayList<>(1);
+            path.add(new Edge(targetX, targetY));
+        }
+        return path;
+    }
+
+    /**
+     * Забывает пути, запомненные {@link #rememberPath(int, int, int, int)}.
+     */
+    public void clearRememberedPaths() {
+        rememberedPaths.clear();
+    }
+
+    /**
+     * Ищет путь до цели и запоминает его, чтобы затем отдать через {@link #rememberedPath(int, int)}
+     * без повторного поиска. Так оценка нескольких кандидатов не ищет путь к выбранному дважды.
+     *
+     * @return длина пути в шагах или -1, если цель недостижима
+     */
+    public int rememberPath(int startX, int startY, int targetX, int targetY) {
+        List<Edge> path = search(startX, startY, targetX, targetY);
+        if (path == null) {
+            return -1;
+        }
+        rememberedPaths.add(path);
+        return path.size() - 1;
+    }
+
+    /**
+     * @return копия запомненного пути, который заканчивается в клетке (x, y), или null
+     */
+    public List<Edge> rememberedPath(int x, int y) {
+        for (List<Edge> path : rememberedPaths) {
+            Edge last = path.get(path.size() - 1);
+            if (last.getX() == x && last.getY() == y) {
+                return new ArrayList<>(path);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return путь от старта до цели или null, если цель недостижима или лежит вне поля
+     */
+    private List<Edge> search(int startX, int startY, int targetX, int targetY) {
+        lastExpanded = 0;
+        heapPeak = 0;
+        if (!inBounds(startX, startY) || !inBounds(targetX, targetY)) {
+            return null;
+        }
+        rebuildDirty();
+        int start = startX * height + startY;
+        int target = targetX * height + targetY;
+        List<Edge> path = new ArrayList<>();
+        path.add(new Edge(startX, startY));
+        if (start == target) {
+            return path;
+        }
+        if (Math.abs(startX - targetX) + Math.abs(startY - targetY) == 1) {
+            path.add(new Edge(targetX, targetY));
+            return path;
+        }
+        int id = nextSearchId();
+        heapSize = 0;
+
+        // Подключаем цель: от каждого свободного соседа цели до вершин его кластера
+        boolean goalConnected = false;
+        for (int dir = 0; dir < DX.length; dir++) {
+            int mx = targetX + DX[dir];
+            int my = targetY + DY[dir];
+            if (!isFree(mx, my)) {
+                continue;
+            }
+            int m = mx * height + my;
+            int cluster = clusterOf(mx, my);
+            localSearch(cluster, m, -1);
+            for (int node : nodes[cluster]) {
+                int local = localIndex(node);
+                if (localStamp[local] != localId) {
+                    continue;
+                }
+                int toGoal = localDistance[local] + 1;
+                if (goalStamp[node] != id || toGoal < goalCost[node]) {
+                    goalConnected = true;
+                    goalStamp[node] = id;
+                    goalCost[node] = toGoal;
+                    goalVia[node] = m;
+                }
+            }
+        }
+
+        // Подключаем старт: от каждого свободного соседа старта до вершин его кластера.
+        // Если по пути встречается сосед цели, это прямой путь внутри кластера
+        int best = INFINITY;
+        int directFrom = -1;
+        int directTo = -1;
+        for (int dir = 0; dir < DX.length; dir++) {
+            int nx = startX + DX[dir];
+            int ny = startY + DY[dir];
+            if (!isFree(nx, ny)) {
+                continue;
+            }
+            int n = nx * height + ny;
+            int cluster = clusterOf(nx, ny);
+            localSearch(cluster, n, -1);
+            for (int toDir = 0; toDir < DX.length; toDir++) {
+                int mx = targetX + DX[toDir];
+                int my = targetY + DY[toDir];
+                if (inCluster(mx, my) && localStamp[localIndex(mx, my)] == localId) {
+                    int direct = localDistance[localIndex(mx, my)] + 2;
+                    if (direct < best) {
+                        best = direct;
+                        directFrom = n;
+                        directTo = mx * height + my;
+                    }
+                }
+            }
+            for (int node : nodes[cluster]) {
+                int local = localIndex(node);
+                if (localStamp[local] != localId) {
+                    continue;
+                }
+                int fromStart = localDistance[local] + 1;
+                if (searchStamp[node] != id || fromStart < cost[node]) {
+                    searchStamp[node] = id;
+                    cost[node] = fromStart;
+                    previous[node] = FROM_START;
+                    startVia[node] = n;
+                    push(fromStart + heuristic(node, targetX, targetY), fromStart, node);
+                }
+            }
+        }
+
+        // A* по абстрактному графу до лучшей вершины, подключенной к цели. Если к цели не подключена
+        // ни одна вершина, обход всего графа ничего не даст
+        int bestGoalNode = -1;
+        while (goalConnected && heapSize > 0) {
+            long key = heapKeys[0];
+            if ((int) (key >>> 32) >= best) {
+                break;
+            }
+            int g = Integer.MAX_VALUE - (int) key;
+            int node = pop();
+            if (cost[node] != g) {
+                continue; // Устаревшая запись кучи
+            }
+            if (goalStamp[node] == id && g + goalCost[node] < best) {
+                best = g + goalCost[node];
+                bestGoalNode = node;
+            }
+            lastExpanded++;
+            expand(node, g, id, targetX, targetY);
+        }
+
+        if (best == INFINITY) {
+            return null;
+        }
+        if (bestGoalNode < 0) {
+            appendLocalPath(path, directFrom, directTo);
+        } else {
+            appendAbstractPath(path, bestGoalNode);
+        }
+        path.add(new Edge(targetX, targetY));
+        return path;
+    }
+
+    /**
+     * Ослабляет ребра вершины: к остальным вершинам ее кластера и к вершинам соседних кластеров через границу.
+     */
+    private void expand(int node, int g, int id, int targetX, int targetY) {
+        int x = node / height;
+        int y = node - x * height;
+        int cluster = clusterOf(x, y);
+        int[] clusterNodes = nodes[cluster];
+        int[] clusterDistances = distances[cluster];
+        int row = nodeIndex[node] * clusterNodes.length;
+        for (int j = 0; j < clusterNodes.length; j++) {
+            int d = clusterDistances[row + j];
+            if (d > 0) {
+                relax(clusterNodes[j], node, g + d, id, targetX, targetY);
+            }
+        }
+        for (int dir = 0; dir < DX.length; dir++) {
+            int nx = x + DX[dir];
+            int ny = y + DY[dir];
+            if (inBounds(nx, ny) && clusterOf(nx, ny) != cluster && nodeIndex[nx * height + ny] >= 0) {
+                relax(nx * height + ny, node, g + 1, id, targetX, targetY);
+            }
+        }
+    }
+
+    private void relax(int node, int from, int g, int id, int targetX, int targetY) {
+        if (searchStamp[node] != id || g < cost[node]) {
+            searchStamp[node] = id;
+            cost[node] = g;
+            previous[node] = from;
+            push(g + heuristic(node, targetX, targetY), g, node);
+        }
+    }
+
+    private int heuristic(int cell, int targetX, int targetY) {
+        int x = cell / height;
+        return Math.abs(x - targetX) + Math.abs(cell - x * height - targetY);
+    }
+
+    /**
+     * Уточняет абстрактный путь, заканчивающийся вершиной {@code last}: соседние вершины разных кластеров
+     * соединены одним шагом, вершины одного кластера — поиском в ширину внутри кластера.
+     */
+    private void appendAbstractPath(List<Edge> path, int last) {
+        int length = 0;
+        for (int node = last; node != FROM_START; node = previous[node]) {
+            chain[length++] = node;
+        }
+        int first = chain[length - 1];
+        appendLocalPath(path, startVia[first], first);
+        for (int i = length - 2; i >= 0; i--) {
+            int from = chain[i + 1];
+            int to = chain[i];
+            int fromX = from / height;
+            int toX = to / height;
+            if (clusterOf(fromX, from - fromX * height) != clusterOf(toX, to - toX * height)) {
+                path.add(new Edge(toX, to - toX * height));
+            } else {
+                appendLocalPath(path, from, to, false);
+            }
+        }
+        appendLocalPath(path, last, goalVia[last], false);
+    }
+
+    private void appendLocalPath(List<Edge> path, int from, int to) {
+        appendLocalPath(path, from, to, true);
+    }
+
+    /**
+     * Дописывает к пути кратчайший путь между двумя клетками одного кластера.
+     *
+     * @param includeFrom дописывать ли саму клетку {@code from}
+     */
+    private void appendLocalPath(List<Edge> path, int from, int to, boolean includeFrom) {
+        int fromX = from / height;
+        localSearch(clusterOf(fromX, from - fromX * height), from, to);
+        int toLocal = localIndex(to);
+        if (localStamp[toLocal] != localId) {
+            throw new IllegalStateException("Cluster path is out of date");
+        }
+        int length = localDistance[toLocal];
+        int local = toLocal;
+        for (int i = length; i >= 0; i--) {
+            localQueue[i] = local;
+            local = localParent[local];
+        }
+        for (int i = includeFrom ? 0 : 1; i <= length; i++) {
+            int lx = localQueue[i] / clusterSize;
+            path.add(new Edge(boundX0 + lx, boundY0 + localQueue[i] - lx * clusterSize));
+        }
+    }
+
+    /**
+     * Поиск в ширину по свободным клеткам одного кластера. Стартовая клетка проходима всегда.
+     *
+     * @param cluster кластер
+     * @param start   стартовая клетка
+     * @param goal    клетка, на которой поиск можно остановить, или -1 для обхода всего кластера
+     */
+    private void localSearch(int cluster, int start, int goal) {
+        setBounds(cluster);
+        if (++localId == Integer.MAX_VALUE) {
+            Arrays.fill(localStamp, 0);
+            localId = 1;
+        }
+        long[] occupied = grid.occupiedWords();
+        int startLocal = localIndex(start);
+        localStamp[startLocal] = localId;
+        localDistance[startLocal] = 0;
+        localParent[startLocal] = -1;
+        if (start == goal) {
+            return;
+        }
+        int spanY = boundY1 - boundY0;
+        int head = 0;
+        int tail = 0;
+        localQueue[tail++] = startLocal;
+        while (head < tail) {
+            int current = localQueue[head++];
+            int lx = current / clusterSize;
+            int ly = current - lx * clusterSize;
+            for (int dir = 0; dir < DX.length; dir++) {
+                int nlx = lx + DX[dir];
+                int nly = ly + DY[dir];
+                if (nlx < 0 || nlx >= boundX1 - boundX0 || nly < 0 || nly >= spanY) {
+                    continue;
+                }
+                int next = nlx * clusterSize + nly;
+                if (localStamp[next] == localId) {
+                    continue;
+                }
+                int cell = (boundX0 + nlx) * height + boundY0 + nly;
+                if ((occupied[cell >>> 6] & (1L << cell)) != 0) {
+                    continue;
+                }
+                localStamp[next] = localId;
+                localDistance[next] = localDistance[current] + 1;
+                localParent[next] = current;
+                if (cell == goal) {
+                    return;
+                }
+                localQueue[tail++] = next;
+            }
+        }
+    }
+
+    private void rebuildDirty() {
+        while (dirtyCount > 0) {
+            int cluster = dirtyStack[--dirtyCount];
+            dirty[cluster] = false;
+            rebuild(cluster);
+        }
+    }
+
+    /**
+     * Заново находит переходные клетки на четырех границах кластера и расстояния между ними.
+     * Входы на общей границе зависят только от ее клеток, поэтому оба соседних кластера выбирают
+     * одни и те же пары переходов.
+     */
+    private void rebuild(int cluster) {
+        rebuiltClusters++;
+        for (int node : nodes[cluster]) {
+            nodeIndex[node] = -1;
+        }
+        setBounds(cluster);
+        int x0 = boundX0;
+        int x1 = boundX1;
+        int y0 = boundY0;
+        int y1 = boundY1;
+        int count = 0;
+        if (x0 > 0) {
+            count = addTransitions(count, x0, y0, x0 - 1, y0, 0, 1, y1 - y0);
+        }
+        if (x1 < width) {
+            count = addTransitions(count, x1 - 1, y0, x1, y0, 0, 1, y1 - y0);
+        }
+        if (y0 > 0) {
+            count = addTransitions(count, x0, y0, x0, y0 - 1, 1, 0, x1 - x0);
+        }
+        if (y1 < height) {
+            count = addTransitions(count, x0, y1 - 1, x0, y1, 1, 0, x1 - x0);
+        }
+
+        int[] clusterNodes = Arrays.copyOf(nodeBuffer, count);
+        int[] clusterDistances = new int[count * count];
+        for (int i = 0; i < count; i++) {
+            localSearch(cluster, clusterNodes[i], -1);
+            for (int j = 0; j < count; j++) {
+                int local = localIndex(clusterNodes[j]);
+                clusterDistances[i * count + j] = localStamp[local] == localId ? localDistance[local] : -1;
+            }
+        }
+        nodes[cluster] = clusterNodes;
+        distances[cluster] = clusterDistances;
+    }
+
+    /**
+     * Находит входы на одной границе кластера и добавляет переходные клетки своей стороны.
+     *
+     * @param count      количество уже найденных вершин кластера
+     * @param ownX       x первой клетки границы со стороны кластера
+     * @param ownY       y первой клетки границы со стороны кластера
+     * @param otherX     x первой клетки границы со стороны соседа
+     * @param otherY     y первой клетки границы со стороны соседа
+     * @param stepX      шаг вдоль границы по x
+     * @param stepY      шаг вдоль границы по y
+     * @param length     длина границы
+     * @return новое количество вершин кластера
+     */
+    private int addTransitions(int count, int ownX, int ownY, int otherX, int otherY, int stepX, int stepY, int length) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && isFree(ownX + i * stepX, ownY + i * stepY)
+                    && isFree(otherX + i * stepX, otherY + i * stepY);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= WIDE_ENTRANCE) {
+                    count = addNode(count, ownX + runStart * stepX, ownY + runStart * stepY);
+                    count = addNode(count, ownX + runEnd * stepX, ownY + runEnd * stepY);
+                } else {
+                    int middle = (runStart + runEnd) / 2;
+                    count = addNode(count, ownX + middle * stepX, ownY + middle * stepY);
+                }
+                runStart = -1;
+            }
+        }
+        return count;
+    }
+
+    private int addNode(int count, int x, int y) {
+        int cell = x * height + y;
+        if (nodeIndex[cell] >= 0) {
+            return count; // Угловая клетка уже стала переходом на другой границе
+        }
+        nodeIndex[cell] = count;
+        nodeBuffer[count] = cell;
+        return count + 1;
+    }
+
+    private void setBounds(int cluster) {
+        int cx = cluster / clustersY;
+        int cy = cluster - cx * clustersY;
+        boundX0 = cx * clusterSize;
+        boundX1 = Math.min(boundX0 + clusterSize, width);
+        boundY0 = cy * clusterSize;
+        boundY1 = Math.min(boundY0 + clusterSize, height);
+    }
+
+    private boolean inCluster(int x, int y) {
+        return x >= boundX0 && x < boundX1 && y >= boundY0 && y < boundY1;
+    }
+
+    private int localIndex(int cell) {
+        int x = cell / height;
+        return localIndex(x, cell - x * height);
+    }
+
+    private int localIndex(int x, int y) {
+        return (x - boundX0) * clusterSize + (y - boundY0);
+    }
+
+    private int clusterOf(int x, int y) {
+        return (x / clusterSize) * clustersY + y / clusterSize;
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private boolean isFree(int x, int y) {
+        return inBounds(x, y) && !grid.isOccupied(x, y);
+    }
+
+    private int nextSearchId() {
+        if (++searchId == Integer.MAX_VALUE) {
+            Arrays.fill(searchStamp, 0);
+            Arrays.fill(goalStamp, 0);
+            searchId = 1;
+        }
+        return searchId;
+    }
+
+    // Двоичная куча вершин по ключу (f << 32) | (MAX_VALUE - g): при равной оценке f первой раскрывается
+    // вершина с большим g, то есть ближайшая к цели. Без этого A* на открытом поле перебирает всю полосу
+    // вершин с одинаковой манхэттенской оценкой
+
+    private void push(int f, int g, int cell) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapKeys.length * 2);
+            heapCells = Arrays.copyOf(heapCells, heapCells.length * 2);
+        }
+        long key = ((long) f << 32) | (Integer.MAX_VALUE - g);
+        int i = heapSize++;
+        heapPeak = Math.max(heapPeak, heapSize);
+        while (i > 0) {
+            int parentIndex = (i - 1) >>> 1;
+            if (heapKeys[parentIndex] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[parentIndex];
+            heapCells[i] = heapCells[parentIndex];
+            i = parentIndex;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cell;
+    }
+
+    /**
+     * @return клетка вершины с наименьшим ключом
+     */
+    private int pop() {
+        int top = heapCells[0];
+        long lastKey = heapKeys[--heapSize];
+        int lastCell = heapCells[heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (lastKey <= heapKeys[child]) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapCells[i] = heapCells[child];
+            i = child;
+        }
+        heapKeys[i] = lastKey;
+        heapCells[i] = lastCell;
+        return top;
+    }
+}
@@ -0,0 +1,159 @@
+package com.heroes_task.programs.path;
+
+/**
+ * Инкрементально поддерживаемая карта занятости поля боя.
+ * <p>
+ * Вместо того чтобы при каждом поиске пути заново обходить список всех юнитов, битва один раз раскладывает живых юнитов
+ * по клеткам, а затем сообщает карте о каждом перемещении и каждой гибели. Для каждой клетки хранится количество
+ * стоящих в ней юнитов (во время анимации атаки юнит ненадолго встает в клетку цели), а битовая маска занятых клеток
+ * читается движком поиска пути напрямую.
+ * <p>
+ * Карта текущей битвы привязывается к потоку, в котором идет битва ({@link #bind(OccupancyGrid)}): программы юнитов
+ * вызывают поиск пути синхронно из того же потока, поэтому {@code UnitTargetPathFinderImpl} находит актуальную карту
+ * без изменения библиотечного интерфейса.
+ * <p>
+ * Для больших полей карта может вести {@link HierarchicalPathEngine}: каждое освобождение или занятие клетки
+ * помечает затронутые кластеры иерархии, и они перестраиваются при следующем поиске пути.
+ */
+public class OccupancyGrid {
+    /**
+     * Ширина стандартного поля боя (количество значений координаты x).
+     */
+    public static final int DEFAULT_WIDTH = 27;
+    /**
+     * Высота стандартного поля боя (количество значений координаты y).
+     */
+    public static final int DEFAULT_HEIGHT = 21;
+
+    /**
+     * Карта битвы, которая сейчас идет в потоке.
+     */
+    private static final ThreadLocal<OccupancyGrid> CURRENT = new ThreadLocal<>();
+
+    private final int width;
+    private final int height;
+    private final long[] occupied;
+    private final int[] counts;
+    private final HierarchicalPathEngine hierarchy;
+
+    /**
+     * @param width  ширина поля
+     * @param height высота поля
+     */
+    public OccupancyGrid(int width, int height) {
+        this(width, height, 0);
+    }
+
+    /**
+     * @param width       ширина поля
+     * @param height      высота поля
+     * @param clusterSize сторона кластера иерархического поиска пути или 0, если иерархия не нужна
+     */
+    public OccupancyGrid(int width, int height, int clusterSize) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        int cells = width * height;
+        this.occupied = new long[(cells + 63) >>> 6];
+        this.counts = new int[cells];
+        this.hierarchy = clusterSize > 0 ? new HierarchicalPathEngine(this, clusterSize) : null;
+    }
+
+    /**
+     * Привязывает карту к текущему потоку.
+     *
+     * @param grid карта битвы или null, чтобы снять привязку
+     * @return карта, которая была привязана раньше; ее нужно вернуть по окончании битвы
+     */
+    public static OccupancyGrid bind(OccupancyGrid grid) {
+        OccupancyGrid previous = CURRENT.get();
+        if (grid == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(grid);
+        }
+        return previous;
+    }
+
+    /**
+     * @return карта битвы, идущей в текущем потоке, или null
+     */
+    public static OccupancyGrid current() {
+        return CURRENT.get();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return иерархический поиск пути по этой карте или null, если карта создана без него
+     */
+    public HierarchicalPathEngine getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Ставит юнита в клетку. Координаты за пределами поля игнорируются.
+     */
+    public void add(int x, int y) {
+        if (inBounds(x, y)) {
+            int cell = x * height + y;
+            if (counts[cell]++ == 0) {
+                occupied[cell >>> 6] |= 1L << cell;
+                if (hierarchy != null) {
+                    hierarchy.cellChanged(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Убирает юнита из клетки (гибель юнита). Координаты за пределами поля игнорируются.
+     */
+    public void remove(int x, int y) {
+        if (inBounds(x, y)) {
+            int cell = x * height + y;
+            if (counts[cell] > 0 && --counts[cell] == 0) {
+                occupied[cell >>> 6] &= ~(1L << cell);
+                if (hierarchy != null) {
+                    hierarchy.cellChanged(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Переносит юнита из одной клетки в другую.
+     */
+    public void move(int fromX, int fromY, int toX, int toY) {
+        if (fromX != toX || fromY != toY) {
+            remove(fromX, fromY);
+            add(toX, toY);
+        }
+    }
+
+    /**
+     * @return true, если в клетке стоит хотя бы один живой юнит
+     */
+    public boolean isOccupied(int x, int y) {
+        return inBounds(x, y) && counts[x * height + y] > 0;
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Битовая маска занятых клеток в формате {@link GridPathEngine}. Массив живой, изменять его нельзя.
+     */
+    long[] occupiedWords() {
+        return occupied;
+    }
+}
@@ -0,0 +1,222 @@
+package com.heroes_task.programs.preset;
+
+import com.battle.heroes.army.Unit;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Точный подбор состава армии: ограниченная задача о рюкзаке по типам юнитов.
+ * <p>
+ * Для каждого типа можно купить от 0 до {@code maxPerType} юнитов, всего не больше {@code maxUnits} (столько
+ * клеток в зоне расстановки); требуется максимизировать суммарную ценность ({@link UnitScorer}) при стоимости
+ * не больше бюджета. Решается динамическим программированием: {@code best[t][b][n]} — наибольшая ценность,
+ * достижимая первыми {@code t} типами при бюджете {@code b} и не более чем {@code n} юнитах. Если ограничение
+ * на общее количество не может сработать ({@code maxPerType} на все типы вмещается в {@code maxUnits}),
+ * измерение {@code n} не хранится, и таблица не растет.
+ * <p>
+ * Таблица строится один раз и переиспользуется: ответ для любого бюджета, не превышающего уже посчитанный,
+ * восстанавливается за O(количество типов). При запросе большего бюджета таблица достраивается только
+ * по новым столбцам, поэтому перебор тысяч бюджетов стоит столько же, сколько один расчет для наибольшего из них.
+ */
+public class ArmyCompositionOptimizer {
+    /**
+     * Минимальный размер таблицы, чтобы не достраивать ее на каждый небольшой бюджет.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<Unit> unitTypes;
+    private final int maxPerType;
+    private final int maxUnits;
+    /**
+     * Может ли сработать ограничение на общее количество юнитов. Если нет, измерение {@code n} не хранится.
+     */
+    private final boolean limitsUnits;
+    /**
+     * Количество значений {@code n} в таблице: {@code maxUnits + 1} или 1, если ограничение не хранится.
+     */
+    private final int unitSlots;
+    private final UnitScorer scorer;
+    private final int[] costs;
+    private final double[] scores;
+    private double[][] best;
+    private byte[][] choice;
+    private int capacity = -1;
+
+    /**
+     * @param unitTypes  шаблоны юнитов, по одному на тип
+     * @param maxPerType наибольшее количество юнитов одного типа (не больше 127)
+     * @param scorer     ценность одного юнита
+     */
+    public ArmyCompositionOptimizer(List<Unit> unitTypes, int maxPerType, UnitScorer scorer) {
+        this(unitTypes, maxPerType, Integer.MAX_VALUE, scorer);
+    }
+
+    /**
+     * @param unitTypes  шаблоны юнитов, по одному на тип
+     * @param maxPerType наибольшее количество юнитов одного типа (не больше 127)
+     * @param maxUnits   наибольшее общее количество юнитов армии, например число клеток зоны расстановки
+     * @param scorer     ценность одного юнита
+     */
+    public ArmyCompositionOptimizer(List<Unit> unitTypes, int maxPerType, int maxUnits, UnitScorer scorer) {
+        if (maxPerType < 0 || maxPerType > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("maxPerType must be in [0, 127]: " + maxPerType);
+        }
+        if (maxUnits < 0) {
+            throw new IllegalArgumentException("maxUnits must not be negative: " + maxUnits);
+        }
+        this.unitTypes = List.copyOf(unitTypes);
+        this.maxPerType = maxPerType;
+        this.maxUnits = maxUnits;
+        this.limitsUnits = (long) maxPerType * this.unitTypes.size() > maxUnits;
+        this.unitSlots = limitsUnits ? maxUnits + 1 : 1;
+        this.scorer = scorer;
+        this.costs = new int[this.unitTypes.size()];
+        this.scores = new double[this.unitTypes.size()];
+        for (int t = 0; t < costs.length; t++) {
+            Unit unit = this.unitTypes.get(t);
+            costs[t] = unit.getCost();
+            scores[t] = scorer.score(unit);
+        }
+    }
+
+    /**
+     * @return шаблоны юнитов в том порядке, в котором {@link #solve(int)} возвращает количества
+     */
+    public List<Unit> getUnitTypes() {
+        return unitTypes;
+    }
+
+    /**
+     * @return наибольшее общее количество юнитов армии
+     */
+    public int getMaxUnits() {
+        return maxUnits;
+    }
+
+    /**
+     * Проверяет, что оптимизатор построен для тех же типов юнитов (тип, стоимость и ценность совпадают),
+     * и его таблицу можно переиспользовать.
+     *
+     * @param otherTypes шаблоны юнитов
+     * @return true, если таблица подходит для этих типов
+     */
+    public boolean isBuiltFor(List<Unit> otherTypes) {
+        if (otherTypes.size() != costs.length) {
+            return false;
+        }
+        for (int t = 0; t < costs.length; t++) {
+            Unit unit = otherTypes.get(t);
+            if (!unit.getUnitType().equals(unitTypes.get(t).getUnitType())
+                    || unit.getCost() != costs[t]
+                    || Double.compare(scorer.score(unit), scores[t]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Подбирает состав армии с наибольшей суммарной ценностью в пределах бюджета и общего количества юнитов.
+     *
+     * @param maxPoints бюджет очков
+     * @return количество юнитов каждого типа в порядке {@link #getUnitTypes()}
+     */
+    public synchronized int[] solve(int maxPoints) {
+        int[] counts = new int[costs.length];
+        if (maxPoints < 0) {
+            return counts;
+        }
+        ensureCapacity(maxPoints);
+
+        // Идем от последнего типа к первому, вычитая стоимость и количество выбранных юнитов из остатка
+        int budget = maxPoints;
+        int slot = unitSlots - 1;
+        for (int t = costs.length - 1; t >= 0; t--) {
+            int count = choice[t][budget * unitSlots + slot];
+            counts[t] = count;
+            if (costs[t] > 0) {
+                budget -= count * costs[t];
+            }
+            if (limitsUnits) {
+                slot -= count;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @param maxPoints бюджет очков
+     * @return наибольшая суммарная ценность армии в пределах бюджета
+     */
+    public synchronized double bestScore(int maxPoints) {
+        if (maxPoints < 0 || costs.length == 0) {
+            return 0.0;
+        }
+        ensureCapacity(maxPoints);
+        return best[costs.length - 1][maxPoints * unitSlots + unitSlots - 1];
+    }
+
+    /**
+     * Достраивает таблицу до заданного бюджета. Столбцы, посчитанные раньше, не пересчитываются.
+     */
+    private void ensureCapacity(int maxPoints) {
+        if (maxPoints <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(maxPoints, Math.max(INITIAL_CAPACITY, capacity * 2));
+        int from = capacity + 1;
+        best = grow(best, newCapacity);
+        choice = grow(choice, newCapacity);
+
+        for (int t = 0; t < costs.length; t++) {
+            double[] row = best[t];
+            double[] previous = t > 0 ? best[t - 1] : null;
+            byte[] rowChoice = choice[t];
+            for (int budget = from; budget <= newCapacity; budget++) {
+                for (int slot = 0; slot < unitSlots; slot++) {
+                    int cell = budget * unitSlots + slot;
+                    double bestValue = previous == null ? 0.0 : previous[cell];
+                    int bestCount = 0;
+                    if (scores[t] > 0) {
+                        // При хранимом измерении n юнитов этого типа не больше, чем осталось мест
+                        int maxCount = limitsUnits ? Math.min(maxPerType, slot) : maxPerType;
+                        for (int count = 1; count <= maxCount; count++) {
+                            int rest = budget - count * Math.max(costs[t], 0);
+                            if (rest < 0) {
+                                break;
+                            }
+                            int restCell = rest * unitSlots + (limitsUnits ? slot - count : 0);
+                            double value = (previous == null ? 0.0 : previous[restCell]) + count * scores[t];
+                            if (value > bestValue) {
+                                bestValue = value;
+                                bestCount = count;
+                            }
+                        }
+                    }
+                    row[cell] = bestValue;
+                    rowChoice[cell] = (byte) bestCount;
+                }
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    private double[][] grow(double[][] table, int newCapacity) {
+        double[][] grown = new double[costs.length][];
+        for (int t = 0; t < costs.length; t++) {
+            int length = (newCapacity + 1) * unitSlots;
+            grown[t] = table == null ? new double[length] : Arrays.copyOf(table[t], length);
+        }
+        return grown;
+    }
+
+    private byte[][] grow(byte[][] table, int newCapacity) {
+        byte[][] grown = new byte[costs.length][];
+        for (int t = 0; t < costs.length; t++) {
+            int length = (newCapacity + 1) * unitSlots;
+            grown[t] = table == null ? new byte[length] : Arrays.copyOf(table[t], length);
+        }
+        return grown;
+    }
+}
@@ -0,0 +1,132 @@
+package com.heroes_task.programs.preset;
+
+import java.util.Random;
+
+/**
+ * Выдача свободных клеток зоны расстановки без повторных попыток и без строковых ключей.
+ * <p>
+ * Для каждого ряда зоны (значения координаты x) заранее заполняется массив свободных координат y.
+ * Клетка выдается частичным тасованием Фишера — Йетса: случайный элемент из еще не выданной части массива
+ * меняется местами с ее первым элементом, и граница сдвигается. Каждая выдача стоит O(1) независимо
+ * от заполненности зоны, а при исчерпании зоны выдача сразу завершается ошибкой.
+ * <p>
+ * Клетка кодируется числом {@code x * height + y}; см. {@link #xOf(int)} и {@link #yOf(int)}.
+ */
+public class PlacementAllocator {
+    private final int width;
+    private final int height;
+    private final boolean frontIsHighX;
+    private final Random random;
+    private final int[][] freeY;
+    private final int[] taken;
+    private int remaining;
+
+    /**
+     * @param width        количество рядов зоны (значений координаты x)
+     * @param height       длина ряда (количество значений координаты y)
+     * @param frontIsHighX true, если передний (ближний к противнику) ряд зоны — с наибольшим x
+     * @param random       источник случайности; при одинаковом зерне расстановка повторяется
+     */
+    public PlacementAllocator(int width, int height, boolean frontIsHighX, Random random) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Zone size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.frontIsHighX = frontIsHighX;
+        this.random = random;
+        this.freeY = new int[width][height];
+        this.taken = new int[width];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                freeY[x][y] = y;
+            }
+        }
+        this.remaining = width * height;
+    }
+
+    /**
+     * @return количество еще свободных клеток
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * @return общее количество клеток зоны
+     */
+    public int getCapacity() {
+        return width * height;
+    }
+
+    public int xOf(int cell) {
+        return cell / height;
+    }
+
+    public int yOf(int cell) {
+        return cell % height;
+    }
+
+    /**
+     * Выдает случайную свободную клетку всей зоны, все свободные клетки равновероятны.
+     */
+    public int takeRandom() {
+        ensureNotFull();
+        // Ряд выбирается с вероятностью, пропорциональной числу его свободных клеток
+        int pick = random.nextInt(remaining);
+        for (int x = 0; x < width; x++) {
+            int free = height - taken[x];
+            if (pick < free) {
+                return takeFromRow(x);
+            }
+            pick -= free;
+        }
+        throw new IllegalStateException("Placement counters are inconsistent");
+    }
+
+    /**
+     * Выдает случайную свободную клетку в самом переднем ряду, где она еще есть.
+     */
+    public int takeFrontmost() {
+        ensureNotFull();
+        for (int i = 0; i < width; i++) {
+            int x = frontIsHighX ? width - 1 - i : i;
+            if (taken[x] < height) {
+                return takeFromRow(x);
+            }
+        }
+        throw new IllegalStateException("Placement counters are inconsistent");
+    }
+
+    /**
+     * Выдает случайную свободную клетку в самом заднем ряду, где она еще есть.
+     */
+    public int takeRearmost() {
+        ensureNotFull();
+        for (int i = 0; i < width; i++) {
+            int x = frontIsHighX ? i : width - 1 - i;
+            if (taken[x] < height) {
+                return takeFromRow(x);
+            }
+        }
+        throw new IllegalStateException("Placement counters are inconsistent");
+    }
+
+    private int takeFromRow(int x) {
+        int[] row = freeY[x];
+        int next = taken[x];
+        int swap = next + random.nextInt(height - next);
+        int y = row[swap];
+        row[swap] = row[next];
+        row[next] = y;
+        taken[x]++;
+        remaining--;
+        return x * height + y;
+    }
+
+    private void ensureNotFull() {
+        if (remaining == 0) {
+            throw new IllegalStateException("Deployment zone " + width + "x" + height + " is full");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.heroes_task.programs.preset;
+
+import com.battle.heroes.army.Unit;
+
+/**
+ * Правило расстановки юнитов по зоне: какую свободную клетку получает очередной юнит.
+ */
+@FunctionalInterface
+public interface PlacementStrategy {
+
+    /**
+     * Случайная клетка всей зоны.
+     */
+    PlacementStrategy RANDOM = (unit, allocator) -> allocator.takeRandom();
+
+    /**
+     * Сначала заполняется передний ряд, затем следующие.
+     */
+    PlacementStrategy FRONT_LOADED = (unit, allocator) -> allocator.takeFrontmost();
+
+    /**
+     * Лучники встают в задние ряды, юниты ближнего боя — в передние.
+     */
+    PlacementStrategy BY_UNIT_TYPE = (unit, allocator) -> "Archer".equalsIgnoreCase(unit.getUnitType())
+            ? allocator.takeRearmost()
+            : allocator.takeFrontmost();
+
+    /**
+     * @param unit      шаблон юнита, которого нужно поставить
+     * @param allocator свободные клетки зоны
+     * @return выданная клетка, см. {@link PlacementAllocator#xOf(int)} и {@link PlacementAllocator#yOf(int)}
+     */
+    int place(Unit unit, PlacementAllocator allocator);
+}
@@ -0,0 +1,23 @@
+package com.heroes_task.programs.preset;
+
+import com.battle.heroes.army.Unit;
+
+/**
+ * Ценность одного юнита заданного типа для оптимизатора состава армии.
+ * Оптимизатор максимизирует сумму ценностей купленных юнитов в пределах бюджета очков.
+ */
+@FunctionalInterface
+public interface UnitScorer {
+
+    /**
+     * Ценность по умолчанию — сумма базовой атаки и здоровья. Максимизация суммы этой ценности в пределах бюджета
+     * и есть покупка с наилучшим отношением «атака + здоровье» на очко стоимости.
+     */
+    UnitScorer ATTACK_PLUS_HEALTH = unit -> unit.getBaseAttack() + unit.getHealth();
+
+    /**
+     * @param unit шаблон юнита (тип)
+     * @return ценность одного юнита этого типа; неположительная ценность означает, что тип не покупается
+     */
+    double score(Unit unit);
+}
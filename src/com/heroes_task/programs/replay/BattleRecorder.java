@@ -0,0 +1,81 @@
+package com.heroes_task.programs.replay;
+
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.heroes_task.programs.battle.BattleResult;
+import com.heroes_task.programs.battle.BattleState;
+
+import java.util.List;
+
+/**
+ * Получатель событий битвы для записи и последующего разбора. Вызывается из потока битвы синхронно,
+ * поэтому реализация должна быть дешевой: не выделять память на событие и не выполнять ввод-вывод напрямую.
+ * <p>
+ * {@code SimulateBattleImpl} сообщает о раундах, атаках и гибели юнитов и на время битвы привязывает получателя
+ * к потоку ({@link #bind(BattleRecorder)}), чтобы поиск пути и программы юнитов могли сообщить о шагах по пути.
+ */
+public interface BattleRecorder {
+
+    /**
+     * Привязывает получателя к текущему потоку.
+     *
+     * @param recorder получатель событий битвы или null, чтобы снять привязку
+     * @return получатель, который был привязан раньше
+     */
+    static BattleRecorder bind(BattleRecorder recorder) {
+        BattleRecorder previous = Binding.CURRENT.get();
+        if (recorder == null) {
+            Binding.CURRENT.remove();
+        } else {
+            Binding.CURRENT.set(recorder);
+        }
+        return previous;
+    }
+
+    /**
+     * @return получатель событий битвы, идущей в текущем потоке, или null
+     */
+    static BattleRecorder current() {
+        return Binding.CURRENT.get();
+    }
+
+    /**
+     * Начало битвы: начальное состояние юнитов. Индексы юнитов во всех остальных событиях — индексы этого состояния.
+     */
+    void battleStart(BattleState state);
+
+    /**
+     * Начало раунда с номером {@code round} (с нуля).
+     */
+    void roundStart(int round);
+
+    /**
+     * Путь, построенный для юнита: каждая клетка пути — отдельный шаг.
+     */
+    void path(Unit unit, List<Edge> path);
+
+    /**
+     * Атака с нанесенным уроном и здоровьем цели после нее.
+     */
+    void attack(int attacker, int target, int damage, int remainingHealth);
+
+    /**
+     * Гибель юнита.
+     */
+    void death(int unit);
+
+    /**
+     * Конец битвы.
+     */
+    void battleEnd(BattleResult result);
+
+    /**
+     * Хранилище привязки получателя к потоку.
+     */
+    final class Binding {
+        private static final ThreadLocal<BattleRecorder> CURRENT = new ThreadLocal<>();
+
+        private Binding() {
+        }
+    }
+}
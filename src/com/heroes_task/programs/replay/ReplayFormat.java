@@ -0,0 +1,70 @@
+package com.heroes_task.programs.replay;
+
+/**
+ * Бинарный формат записи битвы.
+ * <pre>
+ * заголовок      HEADER_SIZE байт: MAGIC, VERSION, RECORD_SIZE, количество юнитов и событий,
+ *                количество раундов, исход, смещения индекса раундов, таблицы юнитов и конца данных
+ * события        RECORD_SIZE байт на событие, сразу после заголовка
+ * индекс раундов long на раунд: номер первого события раунда
+ * таблица юнитов на юнита: сторона, x:short, y:short, здоровье, атака, имя и тип (modified UTF-8)
+ * </pre>
+ * За концом данных файл может продолжаться нулями: запись не укорачивает файл, пока он отображен в память.
+ * Событие фиксированной длины:
+ * {@code type:byte 0:byte x:short y:short actor:short target:short 0:short value:int health:int}.
+ * Координаты хранятся как беззнаковые 16-битные числа, поэтому поле может быть до {@value #MAX_COORDINATE} + 1
+ * клеток по каждой стороне. Порядок байтов — big-endian, как у {@link java.nio.ByteBuffer} по умолчанию.
+ * <p>
+ * Версия 1 хранила координаты одним байтом, версия 2 — не хранила конец данных; обе читаются только ранними
+ * сборками.
+ */
+public final class ReplayFormat {
+    /**
+     * Сигнатура файла: «HRPL».
+     */
+    public static final int MAGIC = 0x4852504C;
+    public static final short VERSION = 3;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 20;
+    /**
+     * Наибольшая координата клетки, которую можно записать.
+     */
+    public static final int MAX_COORDINATE = 0xFFFF;
+
+    /**
+     * Начало раунда: {@code value} — номер раунда.
+     */
+    public static final byte ROUND = 1;
+    /**
+     * Шаг по пути: {@code actor} — юнит, {@code x, y} — клетка, {@code value} — номер шага в пути.
+     */
+    public static final byte STEP = 2;
+    /**
+     * Атака: {@code actor} бьет {@code target}, {@code value} — урон, {@code health} — здоровье цели после атаки.
+     */
+    public static final byte ATTACK = 3;
+    /**
+     * Гибель юнита {@code actor}: {@code health} — его здоровье в момент гибели.
+     */
+    public static final byte DEATH = 4;
+    /**
+     * Конец битвы: {@code value} — номер исхода ({@code BattleResult.Outcome}), {@code health} — сыгранные раунды.
+     */
+    public static final byte END = 5;
+
+    // Смещения полей заголовка
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 6;
+    static final int UNIT_COUNT_OFFSET = 8;
+    static final int PLAYER_COUNT_OFFSET = 12;
+    static final int EVENT_COUNT_OFFSET = 16;
+    static final int ROUND_COUNT_OFFSET = 24;
+    static final int OUTCOME_OFFSET = 28;
+    static final int ROUND_INDEX_OFFSET = 32;
+    static final int UNIT_TABLE_OFFSET = 40;
+    static final int DATA_END_OFFSET = 48;
+
+    private ReplayFormat() {
+    }
+}
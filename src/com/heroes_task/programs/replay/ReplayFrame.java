@@ -0,0 +1,43 @@
+package com.heroes_task.programs.replay;
+
+/**
+ * Состояние юнитов записанной битвы на начало раунда: здоровье и живость по индексам юнитов записи.
+ */
+public class ReplayFrame {
+    private final int round;
+    private final int[] health;
+    private final boolean[] alive;
+    private final boolean[] player;
+
+    ReplayFrame(int round, int[] health, boolean[] alive, boolean[] player) {
+        this.round = round;
+        this.health = health;
+        this.alive = alive;
+        this.player = player;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getHealth(int unit) {
+        return health[unit];
+    }
+
+    public boolean isAlive(int unit) {
+        return alive[unit];
+    }
+
+    /**
+     * @return количество живых юнитов стороны
+     */
+    public int countAlive(boolean playerSide) {
+        int count = 0;
+        for (int unit = 0; unit < alive.length; unit++) {
+            if (alive[unit] && player[unit] == playerSide) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,288 @@
+package com.heroes_task.programs.replay;
+
+import com.heroes_task.programs.battle.BattleResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Чтение записи битвы формата {@link ReplayFormat}.
+ * <p>
+ * Файл целиком отображается в память. События читаются курсором: {@link #next()} переходит к следующему событию,
+ * а его поля доступны через геттеры без создания объектов, поэтому обход и агрегирование идут со скоростью чтения
+ * памяти. {@link #seekRound(int)} по индексу раундов переводит курсор к началу любого раунда за O(1),
+ * а {@link #frameAt(int)} восстанавливает здоровье юнитов на начало раунда без повторной симуляции.
+ */
+public class ReplayReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int unitCount;
+    private final long eventCount;
+    private final long[] roundStarts;
+    private final BattleResult.Outcome outcome;
+
+    private final boolean[] player;
+    private final int[] startX;
+    private final int[] startY;
+    private final int[] startHealth;
+    private final int[] startAttack;
+    private final String[] names;
+    private final String[] types;
+
+    private long cursor;
+    private byte type;
+    private int x;
+    private int y;
+    private int actor;
+    private int target;
+    private int value;
+    private int health;
+
+    /**
+     * @param file файл записи
+     * @throws IOException если файл не удается прочитать или он не в формате записи
+     */
+    public ReplayReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Replay file is too large to map: " + size);
+            }
+            if (size < ReplayFormat.HEADER_SIZE) {
+                throw new IOException("Not a replay file: " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(ReplayFormat.MAGIC_OFFSET) != ReplayFormat.MAGIC) {
+                throw new IOException("Not a replay file: " + file);
+            }
+            if (buffer.getShort(ReplayFormat.VERSION_OFFSET) != ReplayFormat.VERSION
+                    || buffer.getShort(ReplayFormat.RECORD_SIZE_OFFSET) != ReplayFormat.RECORD_SIZE) {
+                throw new IOException("Unsupported replay version: " + buffer.getShort(ReplayFormat.VERSION_OFFSET));
+            }
+            this.unitCount = buffer.getInt(ReplayFormat.UNIT_COUNT_OFFSET);
+            this.eventCount = buffer.getLong(ReplayFormat.EVENT_COUNT_OFFSET);
+            int outcomeIndex = buffer.getInt(ReplayFormat.OUTCOME_OFFSET);
+            this.outcome = outcomeIndex < 0 ? null : BattleResult.Outcome.values()[outcomeIndex];
+
+            int roundCount = buffer.getInt(ReplayFormat.ROUND_COUNT_OFFSET);
+            int roundIndex = (int) buffer.getLong(ReplayFormat.ROUND_INDEX_OFFSET);
+            this.roundStarts = new long[roundCount];
+            for (int round = 0; round < roundCount; round++) {
+                roundStarts[round] = buffer.getLong(roundIndex + round * Long.BYTES);
+            }
+
+            // За концом данных файл может продолжаться нулями: писатель не укорачивает отображенный файл
+            long end = buffer.getLong(ReplayFormat.DATA_END_OFFSET);
+            int unitTable = (int) buffer.getLong(ReplayFormat.UNIT_TABLE_OFFSET);
+            if (end > size || end < unitTable) {
+                throw new IOException("Corrupted replay file: data end " + end + " of " + size + " bytes");
+            }
+            byte[] table = new byte[(int) end - unitTable];
+            buffer.get(unitTable, table);
+            this.player = new boolean[unitCount];
+            this.startX = new int[unitCount];
+            this.startY = new int[unitCount];
+            this.startHealth = new int[unitCount];
+            this.startAttack = new int[unitCount];
+            this.names = new String[unitCount];
+            this.types = new String[unitCount];
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(table))) {
+                for (int i = 0; i < unitCount; i++) {
+                    player[i] = in.readBoolean();
+                    startX[i] = in.readUnsignedShort();
+                    startY[i] = in.readUnsignedShort();
+                    startHealth[i] = in.readInt();
+                    startAttack[i] = in.readInt();
+                    names[i] = in.readUTF();
+                    types[i] = in.readUTF();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public int getRoundCount() {
+        return roundStarts.length;
+    }
+
+    /**
+     * @return исход битвы или null, если запись оборвалась до конца битвы
+     */
+    public BattleResult.Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isPlayer(int unit) {
+        return player[unit];
+    }
+
+    public String getUnitName(int unit) {
+        return names[unit];
+    }
+
+    public String getUnitType(int unit) {
+        return types[unit];
+    }
+
+    public int getStartX(int unit) {
+        return startX[unit];
+    }
+
+    public int getStartY(int unit) {
+        return startY[unit];
+    }
+
+    public int getStartHealth(int unit) {
+        return startHealth[unit];
+    }
+
+    public int getStartAttack(int unit) {
+        return startAttack[unit];
+    }
+
+    /**
+     * Переводит курсор к первому событию раунда: следующий {@link #next()} прочитает событие {@link ReplayFormat#ROUND}.
+     *
+     * @param round номер раунда (с нуля)
+     */
+    public void seekRound(int round) {
+        if (round < 0 || round >= roundStarts.length) {
+            throw new IndexOutOfBoundsException("Round " + round + " of " + roundStarts.length);
+        }
+        cursor = roundStarts[round];
+    }
+
+    /**
+     * Переводит курсор к событию с заданным номером.
+     *
+     * @param event номер события (с нуля)
+     */
+    public void seekEvent(long event) {
+        if (event < 0 || event > eventCount) {
+            throw new IndexOutOfBoundsException("Event " + event + " of " + eventCount);
+        }
+        cursor = event;
+    }
+
+    /**
+     * @return номер события, которое прочитает следующий {@link #next()}
+     */
+    public long position() {
+        return cursor;
+    }
+
+    /**
+     * Читает следующее событие.
+     *
+     * @return false, если события закончились
+     */
+    public boolean next() {
+        if (cursor >= eventCount) {
+            return false;
+        }
+        int offset = (int) (ReplayFormat.HEADER_SIZE + cursor * ReplayFormat.RECORD_SIZE);
+        type = buffer.get(offset);
+        x = buffer.getShort(offset + 2) & 0xFFFF;
+        y = buffer.getShort(offset + 4) & 0xFFFF;
+        actor = buffer.getShort(offset + 6);
+        target = buffer.getShort(offset + 8);
+        value = buffer.getInt(offset + 12);
+        health = buffer.getInt(offset + 16);
+        cursor++;
+        return true;
+    }
+
+    /**
+     * @return тип текущего события, одна из констант {@link ReplayFormat}
+     */
+    public byte getType() {
+        return type;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return индекс юнита, совершившего действие, или -1
+     */
+    public int getActor() {
+        return actor;
+    }
+
+    /**
+     * @return индекс цели атаки или -1
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return номер раунда, номер шага, урон или номер исхода — в зависимости от типа события
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return здоровье цели после атаки или количество раундов в событии {@link ReplayFormat#END}
+     */
+    public int getHealth() {
+        return health;
+    }
+
+    /**
+     * Восстанавливает здоровье и живость юнитов на начало раунда, проигрывая записанные события.
+     * Курсор остается на начале этого раунда.
+     *
+     * @param round номер раунда (с нуля); {@link #getRoundCount()} — состояние после последнего раунда
+     * @return состояние юнитов
+     */
+    public ReplayFrame frameAt(int round) {
+        if (round < 0 || round > roundStarts.length) {
+            throw new IndexOutOfBoundsException("Round " + round + " of " + roundStarts.length);
+        }
+        int[] healths = Arrays.copyOf(startHealth, unitCount);
+        boolean[] alive = new boolean[unitCount];
+        for (int i = 0; i < unitCount; i++) {
+            alive[i] = healths[i] > 0;
+        }
+        long end = round == roundStarts.length ? eventCount : roundStarts[round];
+        cursor = 0;
+        while (cursor < end && next()) {
+            if (type == ReplayFormat.ATTACK) {
+                healths[target] = health;
+            } else if (type == ReplayFormat.DEATH) {
+                healths[actor] = health;
+                alive[actor] = false;
+            }
+        }
+        return new ReplayFrame(round, healths, alive, player);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,255 @@
+package com.heroes_task.programs.replay;
+
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.heroes_task.programs.battle.BattleResult;
+import com.heroes_task.programs.battle.BattleState;
+import com.heroes_task.programs.battle.Battlefield;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Запись одной битвы в файл формата {@link ReplayFormat}.
+ * <p>
+ * События пишутся прямо в отображенный в память участок файла ({@link MappedByteBuffer}) записями фиксированной
+ * длины: запись события — несколько {@code put} в буфер без выделения памяти и без системных вызовов.
+ * Когда участок заканчивается, отображается следующий, вдвое больше прежнего (до {@code REGION_SIZE}).
+ * Заголовок, индекс раундов и таблица юнитов дописываются при {@link #close()} сразу за событиями, а конец данных
+ * записывается в заголовок. Файл не обрезается: отображение снимается только сборщиком мусора, а на Windows
+ * нельзя укоротить файл, пока оно живо. Нулевой хвост за концом данных не длиннее последнего участка.
+ * <p>
+ * Экземпляр записывает одну битву и не потокобезопасен: его вызывает только поток битвы.
+ */
+public class ReplayWriter implements BattleRecorder, AutoCloseable {
+    /**
+     * Размер первого отображаемого участка файла (кратен длине записи).
+     */
+    private static final int FIRST_REGION_SIZE = ReplayFormat.RECORD_SIZE * 4096;
+    /**
+     * Наибольший размер отображаемого участка файла.
+     */
+    private static final int REGION_SIZE = ReplayFormat.RECORD_SIZE * 1024 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private int regionSize = FIRST_REGION_SIZE;
+    private long eventCount;
+    private long[] roundStarts = new long[64];
+    private int roundCount;
+    private byte outcome = -1;
+    private boolean closed;
+
+    private BattleState state;
+    private boolean[] player;
+    private int[] startX;
+    private int[] startY;
+    private int[] startHealth;
+    private int[] startAttack;
+    private String[] names;
+    private String[] types;
+
+    /**
+     * @param file файл записи; существующий файл перезаписывается
+     * @throws IOException если файл не удается открыть
+     */
+    public ReplayWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * @return количество записанных событий
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    @Override
+    public void battleStart(BattleState battleState) {
+        if (state != null) {
+            throw new IllegalStateException("ReplayWriter records a single battle");
+        }
+        if (battleState.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many units for the replay format: " + battleState.size());
+        }
+        Battlefield battlefield = battleState.getBattlefield();
+        if (battlefield.getWidth() - 1 > ReplayFormat.MAX_COORDINATE
+                || battlefield.getHeight() - 1 > ReplayFormat.MAX_COORDINATE) {
+            throw new IllegalArgumentException("Battlefield is too large for the replay format: " + battlefield);
+        }
+        state = battleState;
+        int size = battleState.size();
+        player = new boolean[size];
+        startX = new int[size];
+        startY = new int[size];
+        startHealth = new int[size];
+        startAttack = new int[size];
+        names = new String[size];
+        types = new String[size];
+        for (int i = 0; i < size; i++) {
+            Unit unit = battleState.getUnit(i);
+            player[i] = battleState.isPlayer(i);
+            startX[i] = battleState.getX(i);
+            startY[i] = battleState.getY(i);
+            startHealth[i] = battleState.getHealth(i);
+            startAttack[i] = battleState.getAttack(i);
+            names[i] = unit.getName();
+            types[i] = unit.getUnitType();
+        }
+    }
+
+    @Override
+    public void roundStart(int round) {
+        if (roundCount == roundStarts.length) {
+            roundStarts = Arrays.copyOf(roundStarts, roundCount * 2);
+        }
+        roundStarts[roundCount++] = eventCount;
+        write(ReplayFormat.ROUND, 0, 0, -1, -1, round, 0);
+    }
+
+    @Override
+    public void path(Unit unit, List<Edge> path) {
+        int actor = state == null ? -1 : state.indexOf(unit);
+        if (actor < 0) {
+            return;
+        }
+        for (int step = 0; step < path.size(); step++) {
+            Edge edge = path.get(step);
+            write(ReplayFormat.STEP, edge.getX(), edge.getY(), actor, -1, step, 0);
+        }
+    }
+
+    @Override
+    public void attack(int attacker, int target, int damage, int remainingHealth) {
+        write(ReplayFormat.ATTACK, 0, 0, attacker, target, damage, remainingHealth);
+    }
+
+    @Override
+    public void death(int unit) {
+        write(ReplayFormat.DEATH, 0, 0, unit, -1, 0, state.getHealth(unit));
+    }
+
+    @Override
+    public void battleEnd(BattleResult result) {
+        outcome = (byte) result.getOutcome().ordinal();
+        write(ReplayFormat.END, 0, 0, -1, -1, outcome, result.getRounds());
+    }
+
+    /**
+     * Дописывает заголовок, индекс раундов и таблицу юнитов и закрывает файл.
+     *
+     * @throws IOException если запись не удалась
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long roundIndexOffset = ReplayFormat.HEADER_SIZE + eventCount * ReplayFormat.RECORD_SIZE;
+            ByteBuffer index = ByteBuffer.allocate(roundCount * Long.BYTES);
+            for (int round = 0; round < roundCount; round++) {
+                index.putLong(roundStarts[round]);
+            }
+            index.flip();
+            long position = roundIndexOffset;
+            while (index.hasRemaining()) {
+                position += channel.write(index, position);
+            }
+
+            long unitTableOffset = position;
+            ByteBuffer table = ByteBuffer.wrap(unitTable());
+            while (table.hasRemaining()) {
+                position += channel.write(table, position);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(ReplayFormat.HEADER_SIZE);
+            header.putInt(ReplayFormat.MAGIC_OFFSET, ReplayFormat.MAGIC)
+                    .putShort(ReplayFormat.VERSION_OFFSET, ReplayFormat.VERSION)
+                    .putShort(ReplayFormat.RECORD_SIZE_OFFSET, (short) ReplayFormat.RECORD_SIZE)
+                    .putInt(ReplayFormat.UNIT_COUNT_OFFSET, names == null ? 0 : names.length)
+                    .putInt(ReplayFormat.PLAYER_COUNT_OFFSET, countPlayers())
+                    .putLong(ReplayFormat.EVENT_COUNT_OFFSET, eventCount)
+                    .putInt(ReplayFormat.ROUND_COUNT_OFFSET, roundCount)
+                    .putInt(ReplayFormat.OUTCOME_OFFSET, outcome)
+                    .putLong(ReplayFormat.ROUND_INDEX_OFFSET, roundIndexOffset)
+                    .putLong(ReplayFormat.UNIT_TABLE_OFFSET, unitTableOffset)
+                    .putLong(ReplayFormat.DATA_END_OFFSET, position);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            region = null;
+            channel.close();
+        }
+    }
+
+    private void write(byte type, int x, int y, int actor, int target, int value, int health) {
+        if (closed) {
+            throw new IllegalStateException("ReplayWriter is closed");
+        }
+        if (region == null || region.remaining() < ReplayFormat.RECORD_SIZE) {
+            mapNextRegion();
+        }
+        region.put(type)
+                .put((byte) 0)
+                .putShort((short) x)
+                .putShort((short) y)
+                .putShort((short) actor)
+                .putShort((short) target)
+                .putShort((short) 0)
+                .putInt(value)
+                .putInt(health);
+        eventCount++;
+    }
+
+    private void mapNextRegion() {
+        long start = ReplayFormat.HEADER_SIZE + eventCount * ReplayFormat.RECORD_SIZE;
+        try {
+            region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map replay file", e);
+        }
+        regionSize = Math.min(regionSize * 2, REGION_SIZE);
+    }
+
+    private byte[] unitTable() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int size = names == null ? 0 : names.length;
+            for (int i = 0; i < size; i++) {
+                out.writeBoolean(player[i]);
+                out.writeShort(startX[i]);
+                out.writeShort(startY[i]);
+                out.writeInt(startHealth[i]);
+                out.writeInt(startAttack[i]);
+                out.writeUTF(names[i]);
+                out.writeUTF(types[i]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private int countPlayers() {
+        int count = 0;
+        if (player != null) {
+            for (boolean isPlayer : player) {
+                if (isPlayer) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
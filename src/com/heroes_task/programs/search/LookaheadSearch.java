@@ -0,0 +1,220 @@
+package com.heroes_task.programs.search;
+
+import com.heroes_task.programs.battle.BattleSnapshot;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Перебор целей атаки методом Монте-Карло с ограниченным горизонтом.
+ * <p>
+ * Для каждого кандидата снимок битвы форкается, атакующий бьет кандидата, и битва доигрывается случайными ходами
+ * на {@code horizonRounds} раундов вперед. Кандидаты для следующей доигровки выбираются по UCB1, поэтому
+ * перспективные цели получают больше доигровок. Доигровки делятся между {@code workers} параллельными задачами
+ * {@link ForkJoinTask}, у каждой свой генератор и своя статистика; статистики складываются после перебора.
+ * <p>
+ * Перебор останавливается, когда исчерпан лимит доигровок или бюджет времени хода. Без бюджета времени выбор
+ * определяется зерном, с бюджетом зависит еще и от скорости машины. Экземпляр потокобезопасен.
+ */
+public class LookaheadSearch {
+    /**
+     * Бюджет времени хода по умолчанию, нс.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+    /**
+     * Лимит доигровок на ход по умолчанию.
+     */
+    public static final int DEFAULT_MAX_ROLLOUTS = 512;
+    /**
+     * Горизонт доигровки по умолчанию, раундов.
+     */
+    public static final int DEFAULT_HORIZON_ROUNDS = 20;
+    /**
+     * Вес исхода доигровки в награде; остальное — доля здоровья своей стороны.
+     */
+    private static final double OUTCOME_WEIGHT = 0.8;
+    /**
+     * Коэффициент исследования UCB1 для наград из [0, 1].
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    private final long budgetNanos;
+    private final int maxRollouts;
+    private final int horizonRounds;
+    private final int workers;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder rollouts = new LongAdder();
+
+    public LookaheadSearch() {
+        this(DEFAULT_BUDGET_NANOS, DEFAULT_MAX_ROLLOUTS, DEFAULT_HORIZON_ROUNDS, 1);
+    }
+
+    /**
+     * @param budgetNanos   бюджет времени хода, нс; 0 — без ограничения по времени
+     * @param maxRollouts   лимит доигровок на ход
+     * @param horizonRounds на сколько раундов вперед доигрывается битва
+     * @param workers       количество параллельных задач перебора
+     */
+    public LookaheadSearch(long budgetNanos, int maxRollouts, int horizonRounds, int workers) {
+        if (budgetNanos < 0) {
+            throw new IllegalArgumentException("budgetNanos must not be negative: " + budgetNanos);
+        }
+        if (maxRollouts < 1) {
+            throw new IllegalArgumentException("maxRollouts must be positive: " + maxRollouts);
+        }
+        if (horizonRounds < 1) {
+            throw new IllegalArgumentException("horizonRounds must be positive: " + horizonRounds);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+        this.budgetNanos = budgetNanos;
+        this.maxRollouts = maxRollouts;
+        this.horizonRounds = horizonRounds;
+        this.workers = workers;
+    }
+
+    /**
+     * Выбирает цель атаки.
+     *
+     * @param root       снимок битвы, в котором ходит атакующий; не изменяется
+     * @param attacker   индекс атакующего в снимке
+     * @param candidates индексы доступных целей
+     * @param count      количество целей в {@code candidates}, не меньше 1
+     * @param seed       зерно доигровок
+     * @return позиция выбранной цели в {@code candidates}
+     */
+    public int choose(BattleSnapshot root, int attacker, int[] candidates, int count, long seed) {
+        if (count < 1) {
+            throw new IllegalArgumentException("No candidates to choose from");
+        }
+        searches.increment();
+        if (count == 1) {
+            return 0;
+        }
+        long deadline = budgetNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + budgetNanos;
+        int parts = Math.min(workers, maxRollouts);
+        SplittableRandom random = new SplittableRandom(seed);
+        Worker[] tasks = new Worker[parts];
+        for (int part = 0; part < parts; part++) {
+            int share = maxRollouts / parts + (part < maxRollouts % parts ? 1 : 0);
+            tasks[part] = new Worker(root, attacker, candidates, count, share, deadline, random.split());
+        }
+        if (parts == 1) {
+            tasks[0].compute();
+        } else {
+            ForkJoinTask.invokeAll(tasks);
+        }
+
+        // Складываем статистику задач и берем цель с лучшей средней наградой
+        int best = 0;
+        double bestMean = -1;
+        for (int arm = 0; arm < count; arm++) {
+            int visits = 0;
+            double sum = 0;
+            for (Worker task : tasks) {
+                visits += task.visits[arm];
+                sum += task.sums[arm];
+            }
+            double mean = visits == 0 ? 0 : sum / visits;
+            if (mean > bestMean) {
+                best = arm;
+                bestMean = mean;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return количество ходов, для которых выполнялся перебор
+     */
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    /**
+     * @return суммарное количество доигровок
+     */
+    public long getRollouts() {
+        return rollouts.sum();
+    }
+
+    /**
+     * Награда стороны по итогу доигровки: победа 1, ничья или незаконченная битва 0.5, поражение 0
+     * с весом {@link #OUTCOME_WEIGHT}, плюс доля здоровья своей стороны в суммарном здоровье.
+     */
+    static double reward(BattleSnapshot snapshot, boolean player) {
+        int own = snapshot.getHealth(player);
+        int enemy = snapshot.getHealth(!player);
+        double outcome = enemy == 0 ? 1 : own == 0 ? 0 : 0.5;
+        double share = own + enemy == 0 ? 0.5 : (double) own / (own + enemy);
+        return OUTCOME_WEIGHT * outcome + (1 - OUTCOME_WEIGHT) * share;
+    }
+
+    /**
+     * Часть доигровок одного хода со своей статистикой по кандидатам.
+     */
+    private final class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BattleSnapshot root;
+        private final int attacker;
+        private final int[] candidates;
+        private final int share;
+        private final long deadline;
+        private final SplittableRandom random;
+        private final int[] visits;
+        private final double[] sums;
+
+        Worker(BattleSnapshot root, int attacker, int[] candidates, int count, int share, long deadline,
+               SplittableRandom random) {
+            this.root = root;
+            this.attacker = attacker;
+            this.candidates = candidates;
+            this.share = share;
+            this.deadline = deadline;
+            this.random = random;
+            this.visits = new int[count];
+            this.sums = new double[count];
+        }
+
+        @Override
+        protected void compute() {
+            boolean player = root.isPlayer(attacker);
+            int[] buffer = new int[root.size()];
+            int done = 0;
+            while (done < share && (done == 0 || System.nanoTime() < deadline)) {
+                int arm = select(done);
+                BattleSnapshot child = root.fork();
+                child.attack(attacker, candidates[arm]);
+                child.playout(random, horizonRounds, buffer);
+                visits[arm]++;
+                sums[arm] += reward(child, player);
+                done++;
+            }
+            rollouts.add(done);
+        }
+
+        /**
+         * UCB1: сначала каждый кандидат по разу, затем максимум средней награды с поправкой на неуверенность.
+         */
+        private int select(int total) {
+            if (total < visits.length) {
+                return total;
+            }
+            double logTotal = Math.log(total);
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int arm = 0; arm < visits.length; arm++) {
+                double score = sums[arm] / visits[arm] + EXPLORATION * Math.sqrt(logTotal / visits[arm]);
+                if (score > bestScore) {
+                    best = arm;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+    }
+}
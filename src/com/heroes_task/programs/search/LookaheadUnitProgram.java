@@ -0,0 +1,74 @@
+package com.heroes_task.programs.search;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.battle.BattleState;
+import com.heroes_task.programs.battle.HeadlessUnitProgram;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Программа юнита, выбирающая цель перебором ходов вперед ({@link LookaheadSearch}) вместо случайной.
+ * <p>
+ * Снимок берется из состояния битвы, привязанного к потоку ({@link BattleState#current()}). Вне битвы
+ * {@code SimulateBattleImpl}, а также для целей, которых нет в состоянии, программа выбирает цель как обычная
+ * {@link HeadlessUnitProgram}. Движение, путь и удары — те же, что у базовой программы.
+ */
+public class LookaheadUnitProgram extends HeadlessUnitProgram {
+    private final LookaheadSearch search;
+    private final Random random;
+
+    /**
+     * @param unit       юнит, которым управляет программа
+     * @param allyArmy   армия юнита
+     * @param enemyArmy  армия противника
+     * @param playerSide true, если юнит принадлежит армии игрока
+     * @param options    общие параметры программ битвы; их источник случайности дает и зерна перебора,
+     *                   а перебор заменяет случайный выбор цели ближнего боя
+     * @param search     перебор ходов
+     */
+    public LookaheadUnitProgram(Unit unit, Army allyArmy, Army enemyArmy, boolean playerSide,
+                                HeadlessUnitProgram.Options options, LookaheadSearch search) {
+        super(unit, allyArmy, enemyArmy, playerSide, options);
+        if (search == null) {
+            throw new IllegalArgumentException("search must not be null");
+        }
+        this.search = search;
+        this.random = options.getRandom();
+    }
+
+    /**
+     * Назначает программы с перебором всем юнитам одной армии.
+     *
+     * @param army       армия, юниты которой выбирают цели перебором
+     * @param enemyArmy  армия противника
+     * @param playerSide true, если {@code army} — армия игрока
+     * @param options    общие параметры программ битвы
+     * @param search     перебор ходов, общий для всех юнитов
+     */
+    public static void assign(Army army, Army enemyArmy, boolean playerSide, HeadlessUnitProgram.Options options,
+                              LookaheadSearch search) {
+        for (Unit unit : army.getUnits()) {
+            unit.setProgram(new LookaheadUnitProgram(unit, army, enemyArmy, playerSide, options, search));
+        }
+    }
+
+    @Override
+    protected Unit chooseTarget(List<Unit> candidates) {
+        BattleState state = BattleState.current();
+        int attacker = state == null ? -1 : state.indexOf(unit);
+        if (attacker < 0 || candidates.size() == 1) {
+            return super.chooseTarget(candidates);
+        }
+        int[] indices = new int[candidates.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = state.indexOf(candidates.get(i));
+            if (indices[i] < 0) {
+                return super.chooseTarget(candidates);
+            }
+        }
+        int choice = search.choose(state.snapshot(attacker), attacker, indices, indices.length, random.nextLong());
+        return candidates.get(choice);
+    }
+}
@@ -0,0 +1,97 @@
+package com.heroes_task.programs;
+
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.battle.FrontLineIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.heroes_task.programs.TestUnits.knight;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SuitableForAttackUnitsFinderImplTest {
+    private final SuitableForAttackUnitsFinderImpl finder = new SuitableForAttackUnitsFinderImpl();
+
+    @AfterEach
+    void unbindIndex() {
+        FrontLineIndex.bind(null);
+    }
+
+    @Test
+    void picksFrontOfEachRowWithoutIndex() {
+        Unit low = knight("Low", 0, 3);
+        Unit high = knight("High", 0, 9);
+        Unit other = knight("Other", 1, 4);
+
+        List<Unit> left = finder.getSuitableUnits(List.of(List.of(high, low), List.of(other)), true);
+        List<Unit> right = finder.getSuitableUnits(List.of(List.of(high, low), List.of(other)), false);
+
+        assertEquals(List.of(low, other), left);
+        assertEquals(List.of(high, other), right);
+    }
+
+    @Test
+    void skipsDeadUnitsAndEmptyRows() {
+        Unit dead = knight("Dead", 0, 1);
+        dead.setAlive(false);
+        Unit alive = knight("Alive", 0, 5);
+
+        List<Unit> suitable = finder.getSuitableUnits(List.of(List.of(dead, alive), List.of()), true);
+
+        assertEquals(List.of(alive), suitable);
+    }
+
+    @Test
+    void indexGivesSameAnswerAsRowScan() {
+        Unit front = knight("Front", 2, 1);
+        Unit middle = knight("Middle", 2, 8);
+        Unit back = knight("Back", 2, 14);
+        Unit other = knight("Other", 3, 6);
+        List<List<Unit>> rows = List.of(List.of(back, middle, front), List.of(other));
+        List<Unit> scanLeft = finder.getSuitableUnits(rows, true);
+        List<Unit> scanRight = finder.getSuitableUnits(rows, false);
+
+        FrontLineIndex index = new FrontLineIndex(27, 21);
+        for (Unit unit : List.of(front, middle, back, other)) {
+            index.add(FrontLineIndex.COMPUTER, unit, unit.getxCoordinate(), unit.getyCoordinate());
+        }
+        FrontLineIndex.bind(index);
+
+        assertEquals(List.of(front, other), scanLeft);
+        assertEquals(scanLeft, finder.getSuitableUnits(rows, true));
+        assertEquals(scanRight, finder.getSuitableUnits(rows, false));
+    }
+
+    @Test
+    void indexAnswersForTheWholeRowOfTheBoundBattle() {
+        // Ряд определяется по первому живому юниту: индекс отвечает за весь ряд битвы, не просматривая список
+        Unit front = knight("Front", 2, 1);
+        Unit middle = knight("Middle", 2, 8);
+        Unit back = knight("Back", 2, 14);
+        FrontLineIndex index = new FrontLineIndex(27, 21);
+        for (Unit unit : List.of(front, middle, back)) {
+            index.add(FrontLineIndex.COMPUTER, unit, unit.getxCoordinate(), unit.getyCoordinate());
+        }
+        FrontLineIndex.bind(index);
+
+        assertSame(front, finder.getSuitableUnits(List.of(List.of(back, middle)), true).get(0));
+        assertSame(back, finder.getSuitableUnits(List.of(List.of(front, middle)), false).get(0));
+    }
+
+    @Test
+    void deadIndexedUnitFallsBackToRowScan() {
+        // Юнит погиб, а индекс еще не обновлен: его ответу верить нельзя
+        Unit front = knight("Front", 2, 1);
+        Unit middle = knight("Middle", 2, 8);
+        FrontLineIndex index = new FrontLineIndex(27, 21);
+        for (Unit unit : List.of(front, middle)) {
+            index.add(FrontLineIndex.COMPUTER, unit, unit.getxCoordinate(), unit.getyCoordinate());
+        }
+        FrontLineIndex.bind(index);
+        front.setAlive(false);
+
+        assertEquals(List.of(middle), finder.getSuitableUnits(List.of(List.of(middle, front)), true));
+    }
+}
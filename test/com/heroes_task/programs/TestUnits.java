@@ -0,0 +1,49 @@
+package com.heroes_task.programs;
+
+import com.battle.heroes.army.Unit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Общие юниты тестов с характеристиками типов игры.
+ */
+public final class TestUnits {
+
+    private TestUnits() {
+    }
+
+    /**
+     * @return шаблоны четырех типов юнитов игры, по одному на тип
+     */
+    public static List<Unit> unitTypes() {
+        List<Unit> types = new ArrayList<>();
+        types.add(archer("Archer", 0, 0));
+        types.add(template("Knight", 30, 60, 26));
+        types.add(template("Swordsman", 100, 20, 17));
+        types.add(template("Pikeman", 60, 25, 20));
+        return types;
+    }
+
+    /**
+     * @return шаблон типа ближнего боя с заданными характеристиками в клетке (0, 0)
+     */
+    public static Unit template(String type, int health, int attack, int cost) {
+        return new Unit(type, type, health, attack, cost, "melee", new HashMap<>(), new HashMap<>(), 0, 0);
+    }
+
+    /**
+     * @return лучник в заданной клетке
+     */
+    public static Unit archer(String name, int x, int y) {
+        return new Unit(name, "Archer", 50, 30, 19, "ranged", new HashMap<>(), new HashMap<>(), x, y);
+    }
+
+    /**
+     * @return рыцарь (ближний бой) в заданной клетке
+     */
+    public static Unit knight(String name, int x, int y) {
+        return new Unit(name, "Knight", 30, 60, 26, "melee", new HashMap<>(), new HashMap<>(), x, y);
+    }
+}
@@ -0,0 +1,72 @@
+package com.heroes_task.programs.battle;
+
+import com.battle.heroes.army.Unit;
+import org.junit.jupiter.api.Test;
+
+import static com.heroes_task.programs.TestUnits.knight;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrontLineIndexTest {
+
+    @Test
+    void findsFrontOfEachSide() {
+        FrontLineIndex index = new FrontLineIndex(27, 21);
+        Unit near = knight("Near", 3, 2);
+        Unit far = knight("Far", 3, 15);
+        Unit enemy = knight("Enemy", 3, 7);
+        index.add(FrontLineIndex.COMPUTER, near, 3, 2);
+        index.add(FrontLineIndex.COMPUTER, far, 3, 15);
+        index.add(FrontLineIndex.PLAYER, enemy, 3, 7);
+
+        assertSame(near, index.front(FrontLineIndex.COMPUTER, 3, true));
+        assertSame(far, index.front(FrontLineIndex.COMPUTER, 3, false));
+        assertSame(enemy, index.front(FrontLineIndex.PLAYER, 3, true));
+        assertNull(index.front(FrontLineIndex.COMPUTER, 4, true));
+    }
+
+    @Test
+    void frontFollowsMovesAndRemovals() {
+        FrontLineIndex index = new FrontLineIndex(27, 21);
+        Unit near = knight("Near", 3, 2);
+        Unit far = knight("Far", 3, 15);
+        index.add(FrontLineIndex.PLAYER, near, 3, 2);
+        index.add(FrontLineIndex.PLAYER, far, 3, 15);
+
+        index.move(FrontLineIndex.PLAYER, far, 3, 15, 3, 1);
+        assertSame(far, index.front(FrontLineIndex.PLAYER, 3, true));
+        assertSame(near, index.front(FrontLineIndex.PLAYER, 3, false));
+
+        index.remove(FrontLineIndex.PLAYER, 3, 1);
+        assertSame(near, index.front(FrontLineIndex.PLAYER, 3, true));
+        assertNull(index.unitAt(FrontLineIndex.PLAYER, 3, 1));
+    }
+
+    @Test
+    void sharedCellIsAmbiguousUntilItEmpties() {
+        FrontLineIndex index = new FrontLineIndex(27, 21);
+        Unit first = knight("First", 1, 5);
+        Unit second = knight("Second", 1, 6);
+        index.add(FrontLineIndex.PLAYER, first, 1, 5);
+        index.add(FrontLineIndex.PLAYER, second, 1, 6);
+
+        // Второй юнит встает в клетку первого
+        index.move(FrontLineIndex.PLAYER, second, 1, 6, 1, 5);
+        assertFalse(index.isConsistent(FrontLineIndex.PLAYER));
+        assertTrue(index.isConsistent(FrontLineIndex.COMPUTER));
+        assertNull(index.unitAt(FrontLineIndex.PLAYER, 1, 5));
+
+        // Один из двух ушел: по счетчику не узнать, кто остался, клетка все еще неоднозначна
+        index.move(FrontLineIndex.PLAYER, second, 1, 5, 1, 6);
+        assertFalse(index.isConsistent(FrontLineIndex.PLAYER));
+        assertNull(index.unitAt(FrontLineIndex.PLAYER, 1, 5));
+        assertSame(second, index.unitAt(FrontLineIndex.PLAYER, 1, 6));
+
+        // Клетка опустела: индекс снова однозначен
+        index.remove(FrontLineIndex.PLAYER, 1, 5);
+        assertTrue(index.isConsistent(FrontLineIndex.PLAYER));
+        assertSame(second, index.front(FrontLineIndex.PLAYER, 1, true));
+    }
+}
@@ -0,0 +1,123 @@
+package com.heroes_task.programs.path;
+
+import com.battle.heroes.army.programs.Edge;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GridPathEngineTest {
+
+    @Test
+    void findsShortestPathAroundWall() {
+        // Стена по x = 2 от y = 0 до y = 3; обход через y = 4
+        GridPathEngine engine = new GridPathEngine(5, 5);
+        for (int y = 0; y < 4; y++) {
+            engine.block(2, y);
+        }
+
+        List<Edge> path = engine.findPath(0, 0, 4, 0);
+
+        assertEquals(13, path.size());
+        assertPathCells(path, 0, 0, 4, 0);
+        for (Edge cell : path) {
+            assertFalse(engine.isBlocked(cell.getX(), cell.getY()), "path crosses the wall at " + cell);
+        }
+    }
+
+    @Test
+    void pathToOccupiedTargetEndsInTargetCell() {
+        GridPathEngine engine = new GridPathEngine(4, 4);
+        engine.block(0, 0);
+        engine.block(3, 3);
+
+        List<Edge> path = engine.findPath(0, 0, 3, 3);
+
+        assertEquals(7, path.size());
+        assertPathCells(path, 0, 0, 3, 3);
+    }
+
+    @Test
+    void unreachableTargetReturnsTargetCellOnly() {
+        // Цель в углу закрыта двумя соседями
+        GridPathEngine engine = new GridPathEngine(5, 5);
+        engine.block(3, 4);
+        engine.block(4, 3);
+
+        List<Edge> path = engine.findPath(0, 0, 4, 4);
+
+        assertEquals(1, path.size());
+        assertEquals(4, path.get(0).getX());
+        assertEquals(4, path.get(0).getY());
+    }
+
+    @Test
+    void findPathReadsOccupancyGrid() {
+        OccupancyGrid grid = new OccupancyGrid(3, 3);
+        grid.add(1, 0);
+        grid.add(1, 1);
+        GridPathEngine engine = new GridPathEngine(3, 3);
+
+        List<Edge> path = engine.findPath(grid, 0, 0, 2, 0);
+
+        assertEquals(7, path.size());
+        assertPathCells(path, 0, 0, 2, 0);
+
+        grid.remove(1, 0);
+        assertEquals(3, engine.findPath(grid, 0, 0, 2, 0).size());
+    }
+
+    @Test
+    void floodFillGivesDistancesToFreeAndOccupiedCells() {
+        GridPathEngine engine = new GridPathEngine(5, 5);
+        engine.block(1, 0);
+        engine.block(1, 1);
+        engine.block(4, 4);
+
+        int reached = engine.floodFill(0, 0);
+
+        assertEquals(22, reached);
+        assertEquals(0, engine.distanceTo(0, 0));
+        assertEquals(2, engine.distanceTo(0, 2));
+        assertEquals(3, engine.distanceTo(1, 2));
+        // Свободная клетка за стеной: обход через y = 2
+        assertEquals(6, engine.distanceTo(2, 0));
+        // Занятая клетка достижима через свободного соседа
+        assertEquals(8, engine.distanceTo(4, 4));
+
+        List<Edge> path = engine.pathTo(4, 4);
+        assertEquals(9, path.size());
+        assertPathCells(path, 0, 0, 4, 4);
+    }
+
+    @Test
+    void floodFillReportsEnclosedCellAsUnreachable() {
+        GridPathEngine engine = new GridPathEngine(5, 5);
+        engine.block(3, 4);
+        engine.block(4, 3);
+
+        engine.floodFill(0, 0);
+
+        assertEquals(-1, engine.distanceTo(4, 4));
+        assertTrue(engine.pathTo(4, 4).isEmpty());
+    }
+
+    /**
+     * Путь начинается и заканчивается в заданных клетках и идет шагами по соседним клеткам.
+     */
+    private static void assertPathCells(List<Edge> path, int startX, int startY, int targetX, int targetY) {
+        assertEquals(startX, path.get(0).getX());
+        assertEquals(startY, path.get(0).getY());
+        assertEquals(targetX, path.get(path.size() - 1).getX());
+        assertEquals(targetY, path.get(path.size() - 1).getY());
+        for (int i = 1; i < path.size(); i++) {
+            Edge previous = path.get(i - 1);
+            Edge cell = path.get(i);
+            assertEquals(1, Math.abs(previous.getX() - cell.getX()) + Math.abs(previous.getY() - cell.getY()),
+                    "step " + i + " of " + path);
+        }
+    }
+}
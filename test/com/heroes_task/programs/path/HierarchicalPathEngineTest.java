@@ -0,0 +1,100 @@
+package com.heroes_task.programs.path;
+
+import com.battle.heroes.army.programs.Edge;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сверяет иерархический поиск пути с точным поиском в ширину на случайных полях и случайных изменениях занятости.
+ */
+class HierarchicalPathEngineTest {
+    private static final int FIELDS = 40;
+    private static final int QUERIES_PER_FIELD = 150;
+
+    @Test
+    void agreesWithBreadthFirstSearchOnRandomFields() {
+        Random random = new Random(7);
+        for (int field = 0; field < FIELDS; field++) {
+            int width = 5 + random.nextInt(60);
+            int height = 5 + random.nextInt(60);
+            int clusterSize = 2 + random.nextInt(15);
+            double density = random.nextDouble() * 0.45;
+            OccupancyGrid grid = new OccupancyGrid(width, height, clusterSize);
+            GridPathEngine exact = new GridPathEngine(width, height);
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (random.nextDouble() < density) {
+                        grid.add(x, y);
+                    }
+                }
+            }
+
+            for (int query = 0; query < QUERIES_PER_FIELD; query++) {
+                // Часть клеток меняется между запросами, чтобы проверить перестройку кластеров
+                if (query % 20 == 0) {
+                    toggleRandomCells(grid, random, 10);
+                }
+                int startX = random.nextInt(width);
+                int startY = random.nextInt(height);
+                int targetX = random.nextInt(width);
+                int targetY = random.nextInt(height);
+                String where = "field " + field + ", query " + query + ": (" + startX + ", " + startY + ") -> ("
+                        + targetX + ", " + targetY + ")";
+
+                List<Edge> expected = exact.findPath(grid, startX, startY, targetX, targetY);
+                List<Edge> actual = grid.getHierarchy().findPath(startX, startY, targetX, targetY);
+                boolean same = startX == targetX && startY == targetY;
+                boolean expectedReached = expected.size() > 1 || same;
+                boolean actualReached = actual.size() > 1 || same;
+                assertEquals(expectedReached, actualReached, "reachability, " + where);
+                if (!expectedReached) {
+                    assertEquals(1, actual.size(), "unreachable target path, " + where);
+                    continue;
+                }
+                assertValidPath(grid, actual, startX, startY, targetX, targetY, where);
+                assertTrue(actual.size() >= expected.size(), "path shorter than BFS, " + where);
+            }
+        }
+    }
+
+    private static void toggleRandomCells(OccupancyGrid grid, Random random, int cells) {
+        for (int i = 0; i < cells; i++) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (grid.isOccupied(x, y)) {
+                grid.remove(x, y);
+            } else {
+                grid.add(x, y);
+            }
+        }
+    }
+
+    /**
+     * Путь начинается и заканчивается в заданных клетках, идет шагами по соседним клеткам
+     * и не проходит через занятые клетки, кроме стартовой и целевой.
+     */
+    private static void assertValidPath(OccupancyGrid grid, List<Edge> path, int startX, int startY,
+                                        int targetX, int targetY, String where) {
+        Edge first = path.get(0);
+        Edge last = path.get(path.size() - 1);
+        assertEquals(startX, first.getX(), "start x, " + where);
+        assertEquals(startY, first.getY(), "start y, " + where);
+        assertEquals(targetX, last.getX(), "target x, " + where);
+        assertEquals(targetY, last.getY(), "target y, " + where);
+        for (int i = 1; i < path.size(); i++) {
+            Edge previous = path.get(i - 1);
+            Edge cell = path.get(i);
+            int step = Math.abs(previous.getX() - cell.getX()) + Math.abs(previous.getY() - cell.getY());
+            assertEquals(1, step, "step " + i + ", " + where);
+            if (i < path.size() - 1) {
+                assertFalse(grid.isOccupied(cell.getX(), cell.getY()), "occupied cell " + i + ", " + where);
+            }
+        }
+    }
+}
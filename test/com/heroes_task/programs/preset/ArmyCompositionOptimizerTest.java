@@ -0,0 +1,170 @@
+package com.heroes_task.programs.preset;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.heroes_task.programs.GeneratePresetImpl;
+import com.heroes_task.programs.battle.Battlefield;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.heroes_task.programs.TestUnits.template;
+import static com.heroes_task.programs.TestUnits.unitTypes;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сверяет динамическое программирование оптимизатора с полным перебором составов на небольших входах.
+ */
+class ArmyCompositionOptimizerTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesBruteForceOnRandomSmallInputs() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 200; trial++) {
+            int typeCount = 1 + random.nextInt(4);
+            int maxPerType = random.nextInt(5);
+            List<Unit> types = new ArrayList<>();
+            for (int t = 0; t < typeCount; t++) {
+                types.add(template("Type" + t, 1 + random.nextInt(60), random.nextInt(40), 1 + random.nextInt(30)));
+            }
+            ArmyCompositionOptimizer optimizer =
+                    new ArmyCompositionOptimizer(types, maxPerType, UnitScorer.ATTACK_PLUS_HEALTH);
+
+            // Бюджеты идут вразброс, чтобы проверить и достраивание таблицы, и ответы из уже посчитанной
+            for (int query = 0; query < 20; query++) {
+                int budget = random.nextInt(typeCount * maxPerType * 30 + 10);
+                String where = "trial " + trial + ", budget " + budget;
+                double expected = bruteForce(types, maxPerType, Integer.MAX_VALUE, budget, 0);
+
+                int[] counts = optimizer.solve(budget);
+                assertEquals(typeCount, counts.length, where);
+                int cost = 0;
+                double score = 0;
+                for (int t = 0; t < typeCount; t++) {
+                    assertTrue(counts[t] >= 0 && counts[t] <= maxPerType, "count of type " + t + ", " + where);
+                    cost += counts[t] * types.get(t).getCost();
+                    score += counts[t] * UnitScorer.ATTACK_PLUS_HEALTH.score(types.get(t));
+                }
+                assertTrue(cost <= budget, "over budget, " + where);
+                assertEquals(expected, score, EPSILON, "composition score, " + where);
+                assertEquals(expected, optimizer.bestScore(budget), EPSILON, "best score, " + where);
+            }
+        }
+    }
+
+    @Test
+    void matchesBruteForceWithUnitLimit() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 200; trial++) {
+            int typeCount = 1 + random.nextInt(4);
+            int maxPerType = 1 + random.nextInt(4);
+            int maxUnits = random.nextInt(typeCount * maxPerType);
+            List<Unit> types = new ArrayList<>();
+            for (int t = 0; t < typeCount; t++) {
+                types.add(template("Type" + t, 1 + random.nextInt(60), random.nextInt(40), 1 + random.nextInt(30)));
+            }
+            ArmyCompositionOptimizer optimizer =
+                    new ArmyCompositionOptimizer(types, maxPerType, maxUnits, UnitScorer.ATTACK_PLUS_HEALTH);
+
+            for (int query = 0; query < 20; query++) {
+                int budget = random.nextInt(typeCount * maxPerType * 30 + 10);
+                String where = "trial " + trial + ", limit " + maxUnits + ", budget " + budget;
+                double expected = bruteForce(types, maxPerType, maxUnits, budget, 0);
+
+                int[] counts = optimizer.solve(budget);
+                int cost = 0;
+                int units = 0;
+                double score = 0;
+                for (int t = 0; t < typeCount; t++) {
+                    assertTrue(counts[t] >= 0 && counts[t] <= maxPerType, "count of type " + t + ", " + where);
+                    cost += counts[t] * types.get(t).getCost();
+                    units += counts[t];
+                    score += counts[t] * UnitScorer.ATTACK_PLUS_HEALTH.score(types.get(t));
+                }
+                assertTrue(cost <= budget, "over budget, " + where);
+                assertTrue(units <= maxUnits, "over unit limit, " + where);
+                assertEquals(expected, score, EPSILON, "composition score, " + where);
+                assertEquals(expected, optimizer.bestScore(budget), EPSILON, "best score, " + where);
+            }
+        }
+    }
+
+    @Test
+    void budgetOverflowingZoneFillsItWithTheBestUnits() {
+        // Бюджета хватает на 11 юнитов каждого типа, а в зоне 2x5 всего 10 клеток
+        Battlefield battlefield = new Battlefield(10, 5, 2);
+        List<Unit> types = unitTypes();
+        ArmyCompositionOptimizer optimizer = new ArmyCompositionOptimizer(types, GeneratePresetImpl.MAX_UNITS_PER_TYPE,
+                battlefield.getZoneCells(), UnitScorer.ATTACK_PLUS_HEALTH);
+
+        // Дороже всех ценится мечник (120), и его 11 юнитов хватает на все 10 клеток зоны
+        assertArrayEquals(new int[]{0, 0, 10, 0}, optimizer.solve(100_000));
+
+        Army army = GeneratePresetImpl.builder()
+                .battlefield(battlefield)
+                .seed(1)
+                .log(AsyncBattleLog.off())
+                .build()
+                .generate(types, 100_000);
+        assertEquals(battlefield.getZoneCells(), army.getUnits().size());
+    }
+
+    @Test
+    void skipsTypesWithoutValue() {
+        List<Unit> types = List.of(template("Useless", 0, 0, 1), template("Knight", 60, 30, 26));
+        ArmyCompositionOptimizer optimizer = new ArmyCompositionOptimizer(types, 11, Unit::getHealth);
+
+        assertArrayEquals(new int[]{0, 3}, optimizer.solve(100));
+    }
+
+    @Test
+    void negativeBudgetBuysNothing() {
+        ArmyCompositionOptimizer optimizer = new ArmyCompositionOptimizer(
+                List.of(template("Archer", 50, 30, 19)), 11, UnitScorer.ATTACK_PLUS_HEALTH);
+
+        assertArrayEquals(new int[]{0}, optimizer.solve(-1));
+        assertEquals(0.0, optimizer.bestScore(-1), EPSILON);
+    }
+
+    @Test
+    void rejectsNegativeUnitLimit() {
+        List<Unit> types = List.of(template("Archer", 50, 30, 19));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArmyCompositionOptimizer(types, 11, -1, UnitScorer.ATTACK_PLUS_HEALTH));
+    }
+
+    @Test
+    void rejectsMaxPerTypeOutOfRange() {
+        List<Unit> types = List.of(template("Archer", 50, 30, 19));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArmyCompositionOptimizer(types, -1, UnitScorer.ATTACK_PLUS_HEALTH));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArmyCompositionOptimizer(types, 128, UnitScorer.ATTACK_PLUS_HEALTH));
+    }
+
+    /**
+     * @return наибольшая ценность, достижимая типами начиная с {@code from} в пределах бюджета и числа юнитов
+     */
+    private static double bruteForce(List<Unit> types, int maxPerType, int maxUnits, int budget, int from) {
+        if (from == types.size()) {
+            return 0.0;
+        }
+        Unit type = types.get(from);
+        double best = 0.0;
+        for (int count = 0; count <= Math.min(maxPerType, maxUnits) && count * type.getCost() <= budget; count++) {
+            double value = count * UnitScorer.ATTACK_PLUS_HEALTH.score(type)
+                    + bruteForce(types, maxPerType, maxUnits - count, budget - count * type.getCost(), from + 1);
+            best = Math.max(best, value);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,108 @@
+package com.heroes_task.programs.preset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlacementAllocatorTest {
+
+    @Test
+    void randomCellsAreUniqueAndInBounds() {
+        PlacementAllocator allocator = new PlacementAllocator(3, 21, true, new Random(1));
+
+        Set<Integer> cells = new HashSet<>();
+        while (allocator.getRemaining() > 0) {
+            int cell = allocator.takeRandom();
+            assertInBounds(allocator, cell, 3, 21);
+            assertTrue(cells.add(cell), "cell " + cell + " given twice");
+        }
+
+        assertEquals(3 * 21, cells.size());
+        assertEquals(0, allocator.getRemaining());
+        assertThrows(IllegalStateException.class, allocator::takeRandom);
+    }
+
+    @Test
+    void mixedTakesNeverRepeatACell() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 100; trial++) {
+            int width = 1 + random.nextInt(6);
+            int height = 1 + random.nextInt(25);
+            PlacementAllocator allocator = new PlacementAllocator(width, height, random.nextBoolean(),
+                    new Random(random.nextLong()));
+            Set<Integer> cells = new HashSet<>();
+            while (allocator.getRemaining() > 0) {
+                int cell = take(allocator, Kind.values()[random.nextInt(Kind.values().length)]);
+                assertInBounds(allocator, cell, width, height);
+                assertTrue(cells.add(cell), "cell " + cell + " given twice");
+                assertEquals(width * height - cells.size(), allocator.getRemaining());
+            }
+            assertEquals(allocator.getCapacity(), cells.size());
+        }
+    }
+
+    @Test
+    void frontmostFillsRowsFromTheFront() {
+        PlacementAllocator highFront = new PlacementAllocator(3, 4, true, new Random(2));
+        PlacementAllocator lowFront = new PlacementAllocator(3, 4, false, new Random(2));
+
+        for (int i = 0; i < 12; i++) {
+            int expectedRow = i / 4;
+            assertEquals(2 - expectedRow, highFront.xOf(highFront.takeFrontmost()));
+            assertEquals(expectedRow, lowFront.xOf(lowFront.takeFrontmost()));
+        }
+    }
+
+    @Test
+    void rearmostFillsRowsFromTheBack() {
+        PlacementAllocator highFront = new PlacementAllocator(3, 4, true, new Random(3));
+
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i / 4, highFront.xOf(highFront.takeRearmost()));
+        }
+    }
+
+    @Test
+    void sameSeedGivesSamePlacement() {
+        PlacementAllocator first = new PlacementAllocator(3, 21, true, new Random(42));
+        PlacementAllocator second = new PlacementAllocator(3, 21, true, new Random(42));
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals(first.takeRandom(), second.takeRandom());
+        }
+    }
+
+    @Test
+    void rejectsEmptyZone() {
+        assertThrows(IllegalArgumentException.class, () -> new PlacementAllocator(0, 21, true, new Random()));
+        assertThrows(IllegalArgumentException.class, () -> new PlacementAllocator(3, 0, true, new Random()));
+    }
+
+    private enum Kind {
+        RANDOM, FRONTMOST, REARMOST
+    }
+
+    private static int take(PlacementAllocator allocator, Kind kind) {
+        switch (kind) {
+            case FRONTMOST:
+                return allocator.takeFrontmost();
+            case REARMOST:
+                return allocator.takeRearmost();
+            default:
+                return allocator.takeRandom();
+        }
+    }
+
+    private static void assertInBounds(PlacementAllocator allocator, int cell, int width, int height) {
+        int x = allocator.xOf(cell);
+        int y = allocator.yOf(cell);
+        assertTrue(x >= 0 && x < width, "x out of zone: " + x);
+        assertTrue(y >= 0 && y < height, "y out of zone: " + y);
+    }
+}
@@ -0,0 +1,209 @@
+package com.heroes_task.programs.replay;
+
+import com.battle.heroes.army.Army;
+import com.battle.heroes.army.Unit;
+import com.battle.heroes.army.programs.Edge;
+import com.heroes_task.programs.GeneratePresetImpl;
+import com.heroes_task.programs.battle.ArmyCopier;
+import com.heroes_task.programs.battle.BattleBatchRunner;
+import com.heroes_task.programs.battle.BattleResult;
+import com.heroes_task.programs.battle.BattleState;
+import com.heroes_task.programs.battle.Battlefield;
+import com.heroes_task.programs.log.AsyncBattleLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.heroes_task.programs.TestUnits.archer;
+import static com.heroes_task.programs.TestUnits.knight;
+import static com.heroes_task.programs.TestUnits.unitTypes;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayRoundTripTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEveryRecordedEvent() throws IOException {
+        // Поле шире 256 клеток: координаты не должны обрезаться до байта
+        Battlefield battlefield = new Battlefield(400, 300, 10);
+        Unit archer = archer("Archer 1", 399, 290);
+        Unit knight = knight("Knight 1", 0, 280);
+        BattleState state = new BattleState(List.of(archer), List.of(knight), battlefield);
+        Path file = directory.resolve("battle.hrpl");
+
+        try (ReplayWriter writer = new ReplayWriter(file)) {
+            writer.battleStart(state);
+            writer.roundStart(0);
+            writer.path(archer, List.of(new Edge(399, 290), new Edge(398, 290), new Edge(398, 289)));
+            writer.attack(0, 1, 30, 0);
+            state.damage(1, 30);
+            writer.death(1);
+            writer.roundStart(1);
+            writer.battleEnd(new BattleResult(BattleResult.Outcome.PLAYER_WIN, 2, 50, 0));
+            assertEquals(8, writer.getEventCount());
+        }
+
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertEquals(2, reader.getUnitCount());
+            assertEquals(8, reader.getEventCount());
+            assertEquals(2, reader.getRoundCount());
+            assertEquals(BattleResult.Outcome.PLAYER_WIN, reader.getOutcome());
+
+            assertTrue(reader.isPlayer(0));
+            assertEquals("Archer 1", reader.getUnitName(0));
+            assertEquals("Archer", reader.getUnitType(0));
+            assertEquals(399, reader.getStartX(0));
+            assertEquals(290, reader.getStartY(0));
+            assertEquals(50, reader.getStartHealth(0));
+            assertEquals(30, reader.getStartAttack(0));
+            assertFalse(reader.isPlayer(1));
+            assertEquals("Knight 1", reader.getUnitName(1));
+            assertEquals(0, reader.getStartX(1));
+            assertEquals(280, reader.getStartY(1));
+
+            assertEvent(reader, ReplayFormat.ROUND, 0, 0, -1, -1, 0, 0);
+            assertEvent(reader, ReplayFormat.STEP, 399, 290, 0, -1, 0, 0);
+            assertEvent(reader, ReplayFormat.STEP, 398, 290, 0, -1, 1, 0);
+            assertEvent(reader, ReplayFormat.STEP, 398, 289, 0, -1, 2, 0);
+            assertEvent(reader, ReplayFormat.ATTACK, 0, 0, 0, 1, 30, 0);
+            assertEvent(reader, ReplayFormat.DEATH, 0, 0, 1, -1, 0, 0);
+            assertEvent(reader, ReplayFormat.ROUND, 0, 0, -1, -1, 1, 0);
+            assertEvent(reader, ReplayFormat.END, 0, 0, -1, -1, BattleResult.Outcome.PLAYER_WIN.ordinal(), 2);
+            assertFalse(reader.next());
+
+            reader.seekRound(1);
+            assertEquals(6, reader.position());
+
+            ReplayFrame start = reader.frameAt(0);
+            assertTrue(start.isAlive(1));
+            assertEquals(30, start.getHealth(1));
+            ReplayFrame end = reader.frameAt(reader.getRoundCount());
+            assertTrue(end.isAlive(0));
+            assertFalse(end.isAlive(1));
+            assertEquals(1, end.countAlive(true));
+            assertEquals(0, end.countAlive(false));
+        }
+    }
+
+    @Test
+    void replayOfSimulatedBattleMatchesResult() throws IOException {
+        Army computer = GeneratePresetImpl.builder().seed(1).log(AsyncBattleLog.off()).build()
+                .generate(unitTypes(), 1500);
+        Army player = ArmyCopier.copyMirrored(GeneratePresetImpl.builder().seed(2).log(AsyncBattleLog.off()).build()
+                .generate(unitTypes(), 1500));
+        BattleBatchRunner runner = BattleBatchRunner.builder().parallelism(1).build();
+        Path file = directory.resolve("simulated.hrpl");
+
+        BattleResult result;
+        try (ReplayWriter writer = new ReplayWriter(file)) {
+            result = runner.runSingle(player, computer, 7, writer);
+        }
+
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertEquals(player.getUnits().size() + computer.getUnits().size(), reader.getUnitCount());
+            assertEquals(result.getOutcome(), reader.getOutcome());
+            assertEquals(result.getRounds(), reader.getRoundCount());
+
+            ReplayFrame end = reader.frameAt(reader.getRoundCount());
+            int playerHealth = 0;
+            int computerHealth = 0;
+            for (int unit = 0; unit < reader.getUnitCount(); unit++) {
+                if (!end.isAlive(unit)) {
+                    continue;
+                }
+                if (reader.isPlayer(unit)) {
+                    playerHealth += end.getHealth(unit);
+                } else {
+                    computerHealth += end.getHealth(unit);
+                }
+            }
+            assertEquals(result.getPlayerHealth(), playerHealth);
+            assertEquals(result.getComputerHealth(), computerHealth);
+
+            // Каждая атака, включая удар самой программы юнита, записана: урон сходится со здоровьем цели
+            int[] health = new int[reader.getUnitCount()];
+            int startHealth = 0;
+            for (int unit = 0; unit < health.length; unit++) {
+                health[unit] = reader.getStartHealth(unit);
+                startHealth += health[unit];
+            }
+            int damage = 0;
+            reader.seekEvent(0);
+            while (reader.next()) {
+                String where = "event " + (reader.position() - 1);
+                if (reader.getType() == ReplayFormat.ATTACK) {
+                    int target = reader.getTarget();
+                    assertEquals(health[target] - reader.getValue(), reader.getHealth(), where);
+                    health[target] = reader.getHealth();
+                    damage += reader.getValue();
+                } else if (reader.getType() == ReplayFormat.DEATH) {
+                    assertTrue(health[reader.getActor()] <= 0, "death without a fatal attack, " + where);
+                }
+            }
+            int endHealth = 0;
+            for (int unit = 0; unit < health.length; unit++) {
+                assertEquals(end.getHealth(unit), health[unit], "health of unit " + unit);
+                endHealth += health[unit];
+            }
+            assertEquals(startHealth - endHealth, damage);
+            assertTrue(damage > 0);
+        }
+    }
+
+    @Test
+    void readsEventsAcrossMappedRegions() throws IOException {
+        // Больше событий, чем помещается в первые два отображаемых участка
+        int rounds = 20_000;
+        BattleState state = new BattleState(List.of(archer("Archer 1", 26, 0)), List.of(knight("Knight 1", 0, 0)));
+        Path file = directory.resolve("long.hrpl");
+
+        try (ReplayWriter writer = new ReplayWriter(file)) {
+            writer.battleStart(state);
+            for (int round = 0; round < rounds; round++) {
+                writer.roundStart(round);
+            }
+            writer.battleEnd(new BattleResult(BattleResult.Outcome.DRAW, rounds, 50, 30));
+        }
+
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertEquals(rounds + 1, reader.getEventCount());
+            assertEquals(rounds, reader.getRoundCount());
+            assertEquals("Knight 1", reader.getUnitName(1));
+            reader.seekRound(rounds - 1);
+            assertEvent(reader, ReplayFormat.ROUND, 0, 0, -1, -1, rounds - 1, 0);
+            assertEvent(reader, ReplayFormat.END, 0, 0, -1, -1, BattleResult.Outcome.DRAW.ordinal(), rounds);
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsBattlefieldWiderThanCoordinateRange() throws IOException {
+        Battlefield battlefield = new Battlefield(ReplayFormat.MAX_COORDINATE + 2, 21, 3);
+        BattleState state = new BattleState(List.of(archer("Archer 1", 0, 0)),
+                List.of(knight("Knight 1", 1, 0)), battlefield);
+
+        try (ReplayWriter writer = new ReplayWriter(directory.resolve("wide.hrpl"))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.battleStart(state));
+        }
+    }
+
+    private static void assertEvent(ReplayReader reader, byte type, int x, int y, int actor, int target,
+                                    int value, int health) {
+        assertTrue(reader.next(), "event expected at " + reader.position());
+        String where = "event " + (reader.position() - 1);
+        assertEquals(type, reader.getType(), where);
+        assertEquals(x, reader.getX(), where);
+        assertEquals(y, reader.getY(), where);
+        assertEquals(actor, reader.getActor(), where);
+        assertEquals(target, reader.getTarget(), where);
+        assertEquals(value, reader.getValue(), where);
+        assertEquals(health, reader.getHealth(), where);
+    }
+}